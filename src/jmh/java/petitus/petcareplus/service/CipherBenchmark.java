@@ -0,0 +1,136 @@
+package petitus.petcareplus.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import petitus.petcareplus.utils.KeyUtil;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat message encryption before and after the GCM engine. The perCall* benchmarks replay the old
+ * CipherService/AESCipher path: normalize the app secret, SHA-256 it into a key and look up a new ECB Cipher on every
+ * call. The others go through the current CipherService, whose keys are derived once and whose Cipher instances are
+ * reused per thread. A page is 20 messages, the default chat history page size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CipherBenchmark {
+    private static final String SECRET = "cGV0Y2FyZXBsdXMtYmVuY2htYXJrLXNlY3JldC1rZXktMzJieXRlcw==";
+
+    private static final String MESSAGE = "Hi! Could you walk Milo tomorrow at 8am? He needs his harness, it is by the door.";
+
+    private static final int PAGE_SIZE = 20;
+
+    private CipherService cipherService;
+
+    private String legacyText;
+
+    private String gcmText;
+
+    private List<String> legacyPage;
+
+    private List<String> gcmPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        cipherService = new CipherService(new AESCipherService());
+        ReflectionTestUtils.setField(cipherService, "appSecret", SECRET);
+        cipherService.init();
+
+        legacyText = perCallEncrypt(MESSAGE);
+        gcmText = cipherService.encrypt(MESSAGE);
+
+        legacyPage = new ArrayList<>(PAGE_SIZE);
+        gcmPage = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            legacyPage.add(perCallEncrypt(MESSAGE + i));
+            gcmPage.add(cipherService.encrypt(MESSAGE + i));
+        }
+    }
+
+    @Benchmark
+    public String perCallEcbEncrypt() throws Exception {
+        return perCallEncrypt(MESSAGE);
+    }
+
+    @Benchmark
+    public String cachedGcmEncrypt() {
+        return cipherService.encrypt(MESSAGE);
+    }
+
+    @Benchmark
+    public String perCallEcbDecrypt() throws Exception {
+        return perCallDecrypt(legacyText);
+    }
+
+    @Benchmark
+    public String cachedGcmDecrypt() {
+        return cipherService.decrypt(gcmText);
+    }
+
+    @Benchmark
+    public String cachedLegacyDecrypt() {
+        return cipherService.decrypt(legacyText);
+    }
+
+    @Benchmark
+    public List<String> perCallEcbDecryptPage() throws Exception {
+        List<String> decrypted = new ArrayList<>(PAGE_SIZE);
+        for (String text : legacyPage) {
+            decrypted.add(perCallDecrypt(text));
+        }
+        return decrypted;
+    }
+
+    @Benchmark
+    public List<String> cachedGcmDecryptPage() {
+        return cipherService.decryptAll(gcmPage);
+    }
+
+    private static String perCallEncrypt(String plainText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, perCallKey());
+        return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String perCallDecrypt(String encryptedText) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, perCallKey());
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedText)), StandardCharsets.UTF_8);
+    }
+
+    private static SecretKeySpec perCallKey() throws Exception {
+        String secretKey = Arrays.toString(KeyUtil.normalizeKey(SECRET));
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(secretKey);
+        } catch (IllegalArgumentException e) {
+            keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+        }
+        return new SecretKeySpec(Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(keyBytes), 32), "AES");
+    }
+}
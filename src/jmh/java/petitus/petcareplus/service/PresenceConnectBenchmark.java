@@ -0,0 +1,98 @@
+package petitus.petcareplus.service;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.AbstractMessageChannel;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Server side of a reconnect storm: each operation is one user coming back online and getting the presence of
+ * their online partners. Before: the snapshot plus one legacy /queue/initial-online-users frame per partner on every
+ * connect. After: the legacy frames only for sessions subscribed to them, which new clients are not. Both send the
+ * partners one presence delta each. The frames counter is the rate of broker messages those connects produce.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresenceConnectBenchmark {
+    @Param({"20", "200"})
+    private int onlinePartners;
+
+    @Param({"true", "false"})
+    private boolean legacyOnEveryConnect;
+
+    private WebSocketService webSocketService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    /**
+     * Broker messages sent, reported per second next to the connects.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Frames {
+        public long frames;
+    }
+
+    private final ThreadLocal<Frames> currentFrames = new ThreadLocal<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> partnerIds = IntStream.range(0, onlinePartners)
+                .mapToObj(i -> UUID.randomUUID().toString())
+                .toList();
+
+        ChatService chatService = Mockito.mock(ChatService.class);
+        when(chatService.getConversationPartnerIds(any())).thenReturn(partnerIds);
+        OnlineUserService onlineUserService = Mockito.mock(OnlineUserService.class);
+        when(onlineUserService.findOnlineUsers(anyList())).thenReturn(partnerIds);
+
+        AbstractMessageChannel brokerChannel = new AbstractMessageChannel() {
+            @Override
+            protected boolean sendInternal(Message<?> message, long timeout) {
+                currentFrames.get().frames++;
+                return true;
+            }
+        };
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+
+        webSocketService = new WebSocketService(messagingTemplate, chatService,
+                Mockito.mock(ActiveChatService.class), onlineUserService, new DefaultSimpUserRegistry());
+        ReflectionTestUtils.setField(webSocketService, "legacyInitialOnlineUsers", legacyOnEveryConnect);
+    }
+
+    @Benchmark
+    public void connect(Frames frames) {
+        currentFrames.set(frames);
+        webSocketService.handleUserPresence(userId, true);
+    }
+}
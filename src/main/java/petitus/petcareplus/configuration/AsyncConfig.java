@@ -1,9 +1,166 @@
 package petitus.petcareplus.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import petitus.petcareplus.utils.StripedTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-}
\ No newline at end of file
+    public static final String CHAT_IMAGE_UPLOAD_EXECUTOR = "chatImageUploadExecutor";
+
+    public static final String CHAT_IMAGE_UPLOAD_RETRY_SCHEDULER = "chatImageUploadRetryScheduler";
+
+    public static final String CHAT_NOTIFICATION_FLUSH_SCHEDULER = "chatNotificationFlushScheduler";
+
+    public static final String CHAT_MESSAGE_ARCHIVE_SCHEDULER = "chatMessageArchiveScheduler";
+
+    public static final String CHAT_SEND_WRITER_EXECUTOR = "chatSendWriterExecutor";
+
+    public static final String CHAT_SEND_FANOUT_EXECUTOR = "chatSendFanoutExecutor";
+
+    public static final String CHAT_SEND_NOTIFICATION_EXECUTOR = "chatSendNotificationExecutor";
+
+    /**
+     * Pool for plain {@code @Async} methods (mail, ...). The STOMP channel executors are {@code Executor} beans too,
+     * which keeps Boot from creating its own and would leave {@code @Async} on a thread-per-task executor.
+     */
+    @Bean(name = AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor taskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Chat image uploads run on their own bounded pool so a burst of uploads cannot starve the default pool and the
+     * reverse. A full queue rejects the upload instead of queueing images in memory without bound.
+     */
+    @Bean(name = CHAT_IMAGE_UPLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor chatImageUploadExecutor(
+            @Value("${application.chat.images.upload-threads:4}") final int uploadThreads,
+            @Value("${application.chat.images.upload-queue-capacity:100}") final int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(uploadThreads);
+        executor.setMaxPoolSize(uploadThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-image-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Polls the chat image upload retry spool and hands due retries to the upload executor.
+     */
+    @Bean(name = CHAT_IMAGE_UPLOAD_RETRY_SCHEDULER)
+    public ThreadPoolTaskScheduler chatImageUploadRetryScheduler() {
+        return singleThreadScheduler("chat-image-upload-retry-");
+    }
+
+    /**
+     * Flushes the chat notifications collapsed in memory by the write-behind coalescer.
+     */
+    @Bean(name = CHAT_NOTIFICATION_FLUSH_SCHEDULER)
+    public ThreadPoolTaskScheduler chatNotificationFlushScheduler() {
+        return singleThreadScheduler("chat-notification-flusher-");
+    }
+
+    /**
+     * Runs the chat message partition maintenance. A run detaching a month can take a while, shutdown waits for it.
+     */
+    @Bean(name = CHAT_MESSAGE_ARCHIVE_SCHEDULER)
+    @ConditionalOnProperty(name = "application.chat.archive.enabled", havingValue = "true")
+    public ThreadPoolTaskScheduler chatMessageArchiveScheduler() {
+        ThreadPoolTaskScheduler scheduler = singleThreadScheduler("chat-message-archiver-");
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+
+    /**
+     * Single writer thread of the chat send pipeline. It runs until the pipeline is stopped, which happens before
+     * this executor is shut down.
+     */
+    @Bean(name = CHAT_SEND_WRITER_EXECUTOR)
+    public ThreadPoolTaskExecutor chatSendWriterExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("chat-send-writer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Broker delivery of sent chat messages, striped by conversation so each conversation is delivered in commit
+     * order.
+     */
+    @Bean(name = CHAT_SEND_FANOUT_EXECUTOR)
+    public StripedTaskExecutor chatSendFanoutExecutor(
+            @Value("${application.chat.send.fanout-stripes:4}") final int stripes,
+            @Value("${application.chat.send.executor-queue-capacity:1000}") final int queueCapacity) {
+        return new StripedTaskExecutor(stripes,
+                stripe -> blockingExecutor("chat-fanout-" + stripe + "-", 1, queueCapacity));
+    }
+
+    /**
+     * Internal notifications and FCM pushes of sent chat messages.
+     */
+    @Bean(name = CHAT_SEND_NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor chatSendNotificationExecutor(
+            @Value("${application.chat.send.notification-threads:4}") final int threads,
+            @Value("${application.chat.send.executor-queue-capacity:1000}") final int queueCapacity) {
+        return blockingExecutor("chat-notify-", threads, queueCapacity);
+    }
+
+    /**
+     * A full queue blocks the submitting thread instead of dropping the task or running it out of order, and the
+     * queued tasks are finished on shutdown.
+     */
+    private static ThreadPoolTaskExecutor blockingExecutor(String threadPrefix, int threads, int queueCapacity) {
+        RejectedExecutionHandler blockWhenFull = (task, executor) -> {
+            if (executor.isShutdown()) {
+                return;
+            }
+            try {
+                executor.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setRejectedExecutionHandler(blockWhenFull);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(5);
+        return executor;
+    }
+
+    /**
+     * Periodic tasks are cancelled on shutdown, a run in progress is finished.
+     */
+    private static ThreadPoolTaskScheduler singleThreadScheduler(String threadPrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix(threadPrefix);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(5);
+        return scheduler;
+    }
+}
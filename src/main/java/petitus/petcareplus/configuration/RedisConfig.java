@@ -1,11 +1,20 @@
 package petitus.petcareplus.configuration;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import petitus.petcareplus.security.jwt.JwtAuthenticationCache;
+import petitus.petcareplus.service.ProviderAvailabilityService;
+import petitus.petcareplus.websocket.StompClusterListener;
+import petitus.petcareplus.websocket.StompClusterRelay;
+
+import java.util.List;
 
 @Configuration
 public class RedisConfig {
@@ -18,4 +27,21 @@ public class RedisConfig {
         template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       JwtAuthenticationCache jwtAuthenticationCache,
+                                                                       ProviderAvailabilityService providerAvailabilityService,
+                                                                       ObjectProvider<StompClusterRelay> stompClusterRelay,
+                                                                       ObjectProvider<StompClusterListener> stompClusterListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(jwtAuthenticationCache, new ChannelTopic(JwtAuthenticationCache.REVOCATION_CHANNEL));
+        container.addMessageListener(providerAvailabilityService,
+                new ChannelTopic(ProviderAvailabilityService.SCHEDULE_CHANNEL));
+        stompClusterListener.ifAvailable(listener -> container.addMessageListener(listener, List.of(
+                new ChannelTopic(StompClusterRelay.BROADCAST_CHANNEL),
+                new ChannelTopic(stompClusterRelay.getObject().getNodeChannel()))));
+        return container;
+    }
 }
@@ -3,6 +3,7 @@ package petitus.petcareplus.configuration;
 import jakarta.websocket.server.ServerContainer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.server.WebServerFactoryCustomizer;
@@ -17,6 +18,7 @@ import org.springframework.web.socket.config.annotation.WebSocketTransportRegist
 import org.springframework.web.socket.server.standard.ServerEndpointExporter;
 import petitus.petcareplus.exceptions.WebSocketExceptionHandler;
 import petitus.petcareplus.security.config.AuthChannelInterceptor;
+import petitus.petcareplus.websocket.StompClusterRelay;
 
 import java.util.Arrays;
 
@@ -28,6 +30,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final AuthChannelInterceptor authChannelInterceptor;
     private final WebSocketExceptionHandler webSocketExceptionHandler;
+    private final ObjectProvider<StompClusterRelay> stompClusterRelay;
 
     @Value("${cors.allowed-origins:*}")
     private String[] allowedOrigins;
@@ -67,6 +70,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.enableSimpleBroker("/topic", "/queue");
+        // With application.websocket.broker=redis, broker messages are also relayed to the other nodes
+        stompClusterRelay.ifAvailable(relay -> registry.configureBrokerChannel().interceptors(relay));
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
     }
@@ -14,6 +14,7 @@ import petitus.petcareplus.dto.request.auth.*;
 import petitus.petcareplus.dto.response.user.UserResponse;
 import petitus.petcareplus.dto.response.SuccessResponse;
 import petitus.petcareplus.dto.response.auth.TokenResponse;
+import petitus.petcareplus.ratelimit.RateLimited;
 import petitus.petcareplus.service.AuthService;
 import petitus.petcareplus.service.MessageSourceService;
 import petitus.petcareplus.service.UserService;
@@ -29,6 +30,7 @@ public class AuthController {
     private final UserService userService;
 
     @PostMapping("/login")
+    @RateLimited(name = "auth-login", capacity = 10, periodSeconds = 60, scope = RateLimited.Scope.IP)
     @Operation(tags = {"Authentication"}, summary = "Log in", description = "API để đăng nhập và lấy token")
     public ResponseEntity<TokenResponse> login(
             @RequestBody @Valid final LoginRequest request) {
@@ -36,6 +38,7 @@ public class AuthController {
     }
 
     @PostMapping("/register")
+    @RateLimited(name = "auth-register", capacity = 5, periodSeconds = 600, scope = RateLimited.Scope.IP)
     @Operation(tags = {
             "Authentication"}, summary = "Register Account", description = "API để đăng ký tài khoản mới")
     public ResponseEntity<SuccessResponse> register(
@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,12 +15,16 @@ import petitus.petcareplus.dto.request.booking.BookingRequest;
 import petitus.petcareplus.dto.request.booking.BookingStatusUpdateRequest;
 import petitus.petcareplus.dto.response.StandardPaginationResponse;
 import petitus.petcareplus.dto.response.booking.BookingResponse;
+import petitus.petcareplus.dto.response.booking.ProviderAvailabilityResponse;
 import petitus.petcareplus.model.spec.criteria.PaginationCriteria;
 import petitus.petcareplus.security.jwt.JwtUserDetails;
 import petitus.petcareplus.service.BookingService;
 import petitus.petcareplus.service.MessageSourceService;
+import petitus.petcareplus.service.ProviderAvailabilityService;
 import petitus.petcareplus.utils.enums.BookingStatus;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -30,6 +35,7 @@ public class BookingController {
 
         private final BookingService bookingService;
         private final MessageSourceService messageSourceService;
+        private final ProviderAvailabilityService providerAvailabilityService;
 
         @PostMapping
         @PreAuthorize("hasAuthority('USER')")
@@ -42,6 +48,17 @@ public class BookingController {
                 return ResponseEntity.status(HttpStatus.CREATED).body(response);
         }
 
+        @GetMapping("/availability")
+        @Operation(summary = "Get providers' free slots", description = "Get the bookable time slots of one or more providers between two dates")
+        public ResponseEntity<List<ProviderAvailabilityResponse>> getAvailability(
+                        @RequestParam List<UUID> providerIds,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                        @RequestParam(required = false) Integer minMinutes) {
+
+                return ResponseEntity.ok(providerAvailabilityService.getAvailability(providerIds, from, to, minMinutes));
+        }
+
         @GetMapping("/{bookingId}")
         @PreAuthorize("hasAnyAuthority('USER', 'SERVICE_PROVIDER', 'ADMIN')")
         @Operation(summary = "Get booking details", description = "Get details of a specific booking")
@@ -10,12 +10,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import petitus.petcareplus.dto.request.chat.ChatMessageRequest;
 import petitus.petcareplus.dto.request.fcm.FcmTokenRequest;
 import petitus.petcareplus.dto.response.chat.ChatMessageResponse;
 import petitus.petcareplus.dto.response.chat.ConversationResponse;
+import petitus.petcareplus.ratelimit.RateLimited;
 import petitus.petcareplus.service.ChatService;
 import petitus.petcareplus.service.FcmTokenService;
 
@@ -33,6 +36,7 @@ public class ChatController {
     private final FcmTokenService fcmTokenService;
 
     @PostMapping("/messages")
+    @RateLimited(name = "chat-send", capacity = 20, periodSeconds = 10)
     @Operation(summary = "Send a chat message", description = "Send a chat message to another user", security = @SecurityRequirement(name = "bearerAuth"))
     public ResponseEntity<ChatMessageResponse> sendMessage(
             @RequestBody @Valid ChatMessageRequest request) {
@@ -41,6 +45,18 @@ public class ChatController {
                 .body(chatService.sendMessage(request));
     }
 
+    @PostMapping(value = "/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @RateLimited(name = "chat-image-upload", capacity = 10, periodSeconds = 60)
+    @Operation(summary = "Send an image message", description = "Upload an image as multipart file and send it to another user, the upload to storage completes asynchronously", security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<ChatMessageResponse> sendImageMessage(
+            @Parameter(description = "Image file, at most 5MB") @RequestPart("file") MultipartFile file,
+            @Parameter(description = "User ID of the recipient") @RequestParam UUID recipientId,
+            @Parameter(description = "Optional caption") @RequestParam(required = false) String caption) {
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(chatService.sendImageMessage(file, recipientId, caption));
+    }
+
     @GetMapping("/conversations/{userId}")
     @Operation(summary = "Get conversation with a user", description = "Get the conversation history with a specific user", security = @SecurityRequirement(name = "bearerAuth"))
     public ResponseEntity<Page<ChatMessageResponse>> getConversation(
@@ -1,10 +1,12 @@
 package petitus.petcareplus.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +14,7 @@ import petitus.petcareplus.dto.request.notification.NotificationRequest;
 import petitus.petcareplus.dto.response.notification.NotificationResponse;
 import petitus.petcareplus.service.NotificationService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,9 +33,20 @@ public class NotificationController {
     }
 
     @GetMapping
-    @Operation(summary = "Get all notifications", description = "Lấy danh sách thông báo", security = @SecurityRequirement(name = "bearerAuth"))
-    public ResponseEntity<List<NotificationResponse>> getAllNotifications()  {
-        return ResponseEntity.ok(notificationService.getAllNotifications());
+    @Operation(summary = "Get notifications with keyset pagination", description = "Lấy danh sách thông báo, mới nhất trước", security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<List<NotificationResponse>> getAllNotifications(
+            @Parameter(description = "updatedAt of the last notification in the previous page")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastUpdatedAt,
+            @Parameter(description = "id of the last notification in the previous page")
+            @RequestParam(required = false) UUID lastId,
+            @Parameter(description = "Maximum number of notifications to return") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(notificationService.getNotifications(lastUpdatedAt, lastId, limit));
+    }
+
+    @GetMapping("/unread/count")
+    @Operation(summary = "Get unread notification count", description = "Lấy số thông báo chưa đọc", security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<Long> getUnreadCount() {
+        return ResponseEntity.ok(notificationService.getUnreadCount());
     }
 
     @GetMapping("/{id}")
@@ -48,6 +62,13 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/read-all")
+    @Operation(summary = "Mark all as read", description = "Đánh dấu tất cả đã đọc")
+    public ResponseEntity<Void> markAllAsRead() {
+        notificationService.markAllAsRead();
+        return ResponseEntity.ok().build();
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete notification", description = "Xóa thông báo")
     public ResponseEntity<NotificationResponse> deleteNotification(@PathVariable @Valid UUID id) {
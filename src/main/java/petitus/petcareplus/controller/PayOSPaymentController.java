@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import petitus.petcareplus.dto.request.payment.CreatePayOSPaymentRequest;
 import petitus.petcareplus.dto.response.payment.PaymentUrlResponse;
+import petitus.petcareplus.ratelimit.RateLimited;
 import petitus.petcareplus.service.PayOSPaymentService;
 import vn.payos.type.Webhook;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,6 +28,7 @@ public class PayOSPaymentController {
     private final PayOSPaymentService payOSPaymentService;
 
     @PostMapping("/create")
+    @RateLimited(name = "payos-create", capacity = 10, periodSeconds = 60)
     public ResponseEntity<PaymentUrlResponse> createPayOSPayment(
             @Valid @RequestBody CreatePayOSPaymentRequest request) {
 
@@ -38,6 +40,7 @@ public class PayOSPaymentController {
     }
 
     @PostMapping("/webhook")
+    @RateLimited(name = "payos-webhook", capacity = 100, periodSeconds = 1, scope = RateLimited.Scope.GLOBAL)
     public ResponseEntity<String> handlePayOSWebhook(
             @RequestBody Webhook webhookBody,
             @RequestHeader(value = "PayOS-Signature", required = false) String signature,
@@ -7,11 +7,15 @@ import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 import petitus.petcareplus.dto.request.chat.*;
+import petitus.petcareplus.dto.request.notification.NotificationReplayRequest;
 import petitus.petcareplus.dto.response.chat.ChatMessageResponse;
 import petitus.petcareplus.dto.response.chat.ImageUploadResponse;
+import petitus.petcareplus.ratelimit.RateLimited;
+import petitus.petcareplus.service.ChatSendPipeline;
 import petitus.petcareplus.service.ChatService;
 import petitus.petcareplus.service.CipherService;
 import petitus.petcareplus.service.CloudinaryService;
+import petitus.petcareplus.service.NotificationService;
 import petitus.petcareplus.service.WebSocketService;
 
 import java.io.IOException;
@@ -26,19 +30,20 @@ public class WebSocketController {
 
     private final WebSocketService webSocketService;
     private final ChatService chatService;
+    private final ChatSendPipeline chatSendPipeline;
     private final CloudinaryService cloudinaryService;
     private final CipherService cipherService;
+    private final NotificationService notificationService;
 
     @MessageMapping("/chat.sendMessage")
+    @RateLimited(name = "chat-send", capacity = 20, periodSeconds = 10)
     public void sendMessage(
             @Payload ChatMessageRequest chatMessageRequest,
             Principal principal
     ) {
         chatMessageRequest.setSenderId(UUID.fromString(principal.getName()));
 
-        ChatMessageResponse response = chatService.sendMessage(chatMessageRequest, principal);
-
-        webSocketService.sendMessage(response);
+        chatSendPipeline.submit(chatMessageRequest);
     }
 
     @MessageMapping("/chat.typing")
@@ -107,10 +112,30 @@ public class WebSocketController {
         }
     }
 
+    /**
+     * Send the notifications missed since the last one the client has, called again while hasMore is set
+     */
+    @MessageMapping("/notifications.replay")
+    @RateLimited(name = "notification-replay", capacity = 10, periodSeconds = 60)
+    public void replayNotifications(
+            @Payload NotificationReplayRequest replayRequest,
+            Principal principal
+    ) {
+        try {
+            UUID userId = UUID.fromString(principal.getName());
+            webSocketService.sendNotificationReplay(userId,
+                    notificationService.getNotificationsSince(userId, replayRequest.getSinceUpdatedAt(),
+                            replayRequest.getSinceId()));
+        } catch (Exception e) {
+            log.error("Error processing notification replay", e);
+        }
+    }
+
     /**
      * Handle image upload through WebSocket
      */
     @MessageMapping("/chat.uploadImage")
+    @RateLimited(name = "chat-image-upload", capacity = 10, periodSeconds = 60)
     public void uploadImage(
             @Payload ImageUploadRequest imageUploadRequest,
             Principal principal
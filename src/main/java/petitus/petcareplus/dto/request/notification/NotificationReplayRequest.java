@@ -0,0 +1,24 @@
+package petitus.petcareplus.dto.request.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReplayRequest {
+    /**
+     * updatedAt of the newest notification the client has, as the client received it. Everything created or
+     * updated after it is replayed.
+     */
+    private LocalDateTime sinceUpdatedAt;
+
+    /**
+     * id of that notification, orders notifications updated at the same time.
+     */
+    private UUID sinceId;
+}
@@ -0,0 +1,18 @@
+package petitus.petcareplus.dto.response.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProviderAvailabilityResponse {
+    private UUID providerId;
+    private List<TimeSlotResponse> freeSlots;
+}
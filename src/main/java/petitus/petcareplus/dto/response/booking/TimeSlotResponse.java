@@ -0,0 +1,17 @@
+package petitus.petcareplus.dto.response.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSlotResponse {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,19 @@
+package petitus.petcareplus.dto.response.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Online conversation partners at connect time, sent in a single frame. Later changes arrive one by one as
+ * {@link UserPresenceResponse} deltas on /queue/user-status.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OnlineUsersSnapshotResponse {
+    private List<String> onlineUserIds;
+    private long timestamp;
+}
@@ -0,0 +1,29 @@
+package petitus.petcareplus.dto.response.notification;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class NotificationReplayResponse {
+
+    /**
+     * Notifications created or updated after the requested point, least recently updated first.
+     */
+    private List<NotificationResponse> notifications;
+
+    /**
+     * More notifications follow, replay again from the updatedAt and id of the last one of this batch.
+     */
+    private boolean hasMore;
+
+    /**
+     * No replay point was given, the client has to reload its inbox over REST.
+     */
+    private boolean resync;
+
+    private long unreadCount;
+
+}
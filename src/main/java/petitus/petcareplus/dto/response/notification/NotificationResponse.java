@@ -19,8 +19,10 @@ public class NotificationResponse {
     private String message;
     private String title;
     private UUID relatedId;
+    private Integer aggregateCount;
     private Boolean isRead;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
     private LocalDateTime deletedAt;
 
 }
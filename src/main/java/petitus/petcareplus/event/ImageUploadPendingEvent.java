@@ -0,0 +1,11 @@
+package petitus.petcareplus.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import petitus.petcareplus.dto.response.chat.ImageUploadResponse;
+
+@Data
+@AllArgsConstructor
+public class ImageUploadPendingEvent {
+    private ImageUploadResponse imageUploadResponse;
+}
\ No newline at end of file
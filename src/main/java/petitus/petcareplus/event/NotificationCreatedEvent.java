@@ -0,0 +1,11 @@
+package petitus.petcareplus.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import petitus.petcareplus.dto.response.notification.NotificationResponse;
+
+@Data
+@AllArgsConstructor
+public class NotificationCreatedEvent {
+    private NotificationResponse notification;
+}
\ No newline at end of file
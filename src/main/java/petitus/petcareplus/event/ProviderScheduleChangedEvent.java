@@ -0,0 +1,29 @@
+package petitus.petcareplus.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A provider's calendar changed. When bookingId is null the working hours changed and the whole calendar is stale,
+ * otherwise a single booking became active or inactive.
+ */
+@Data
+@AllArgsConstructor
+public class ProviderScheduleChangedEvent {
+    private UUID providerId;
+
+    private UUID bookingId;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+
+    private boolean active;
+
+    public ProviderScheduleChangedEvent(UUID providerId) {
+        this(providerId, null, null, null, false);
+    }
+}
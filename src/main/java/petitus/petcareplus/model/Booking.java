@@ -20,11 +20,28 @@ import org.hibernate.annotations.CreationTimestamp;
 @Setter
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.RESPONSE_GRAPH, attributeNodes = {
+        @NamedAttributeNode(value = "user", subgraph = "user"),
+        @NamedAttributeNode(value = "provider", subgraph = "user"),
+        @NamedAttributeNode(value = "providerService", subgraph = "providerService")
+}, subgraphs = {
+        @NamedSubgraph(name = "user", attributeNodes = {
+                @NamedAttributeNode("role"),
+                @NamedAttributeNode(value = "profile", subgraph = "profile")
+        }),
+        @NamedSubgraph(name = "profile", attributeNodes = @NamedAttributeNode("serviceProviderProfile")),
+        @NamedSubgraph(name = "providerService", attributeNodes = @NamedAttributeNode("service"))
+})
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Booking extends AbstractBaseEntity {
 
+    /**
+     * Everything needed to build a booking response, fetched with the booking itself
+     */
+    public static final String RESPONSE_GRAPH = "Booking.response";
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
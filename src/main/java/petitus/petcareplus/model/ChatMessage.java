@@ -8,11 +8,11 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "chat_messages", indexes = {
-    @Index(columnList = "sender_id, recipient_id", name = "idx_chat_messages_sender_recipient"),
+    @Index(columnList = "sender_id, recipient_id, created_at DESC", name = "idx_chat_messages_conversation"),
     @Index(columnList = "recipient_id, is_read", name = "idx_chat_messages_recipient_read"),
-    @Index(columnList = "created_at", name = "idx_chat_messages_created_at"),
     @Index(columnList = "message_type", name = "idx_chat_messages_message_type")
 })
+// Partitioned by month on created_at, old months live in chat_messages_archive (see ChatMessageArchiver)
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "message_type", discriminatorType = DiscriminatorType.STRING)
 @DiscriminatorValue("TEXT")
@@ -0,0 +1,50 @@
+package petitus.petcareplus.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Inbox row of a user: one row per (user, partner), so each side of a chat has its own last message pointer and
+ * unread counter. Maintained on every message write instead of being derived from chat_messages on read.
+ */
+@Entity
+@Table(name = "conversations", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "partner_id"}, name = "uk_conversations_user_partner")
+}, indexes = {
+    @Index(columnList = "user_id, last_message_at", name = "idx_conversations_user_last_message")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Conversation extends AbstractBaseEntity {
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private UUID partnerId;
+
+    @Column(nullable = false)
+    private UUID lastMessageId;
+
+    @Column(nullable = false)
+    private LocalDateTime lastMessageAt;
+
+    @Column(nullable = false)
+    private UUID lastSenderId;
+
+    /**
+     * Encrypted content of the last message, so the inbox never reads chat_messages, whose old months are archived
+     */
+    @Column(columnDefinition = "TEXT")
+    private String lastMessageContent;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long unreadCount = 0L;
+}
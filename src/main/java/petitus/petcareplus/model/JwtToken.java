@@ -1,39 +1,30 @@
 package petitus.petcareplus.model;
 
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.redis.core.RedisHash;
-import org.springframework.data.redis.core.TimeToLive;
-import org.springframework.data.redis.core.index.Indexed;
 
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * A login session as kept in Redis by {@link petitus.petcareplus.service.JwtTokenService}.
+ */
 @Builder
 @Getter
 @Setter
-@RedisHash(value = "jwtTokens")
 public class JwtToken {
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Indexed
     private UUID userId;
 
-    @Indexed
     private String token;
 
-    @Indexed
     private String refreshToken;
 
-    @Indexed
     private String ipAddress;
 
-    @TimeToLive(unit = TimeUnit.MILLISECONDS)
+    /**
+     * Session lifetime in milliseconds, i.e. the refresh token expiration
+     */
     private Long tokenTTL;
-}
\ No newline at end of file
+}
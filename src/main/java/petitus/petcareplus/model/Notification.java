@@ -7,10 +7,13 @@ import org.hibernate.annotations.GenericGenerator;
 import petitus.petcareplus.utils.enums.Notifications;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Entity
-@Table(name ="Notification")
+@Table(name ="Notification", indexes = {
+        @Index(columnList = "user_id_receive, updated_at DESC, id DESC", name = "idx_notification_inbox")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -43,15 +46,31 @@ public class Notification {
     @Column(nullable = false)
     private UUID relatedId;
 
+    /**
+     * Number of events collapsed into this notification, for chat the unread messages of one sender
+     */
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    @Builder.Default
+    private Integer aggregateCount = 1;
+
     private Boolean isRead;
 
     private LocalDateTime createdAt;
 
+    /**
+     * Last change, a collapsed chat notification is bumped by every message merged into it
+     */
+    private LocalDateTime updatedAt;
+
     private LocalDateTime deletedAt;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        // Stored with microseconds, pushed responses must carry the same value clients page and replay from
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
         isRead = false;
     }
 
@@ -0,0 +1,26 @@
+package petitus.petcareplus.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+/**
+ * Unread notification badge of a user. Adjusted in the same transaction as every notification write, so reading the
+ * badge is a primary key lookup instead of a count over the inbox.
+ */
+@Entity
+@Table(name = "notification_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCounter {
+
+    @Id
+    private UUID userId;
+
+    @Column(nullable = false)
+    private long unreadCount;
+}
@@ -0,0 +1,129 @@
+package petitus.petcareplus.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import petitus.petcareplus.exceptions.TooManyRequestsException;
+import petitus.petcareplus.service.MessageSourceService;
+import petitus.petcareplus.service.RateLimitService;
+import petitus.petcareplus.service.WebSocketService;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Enforces {@link RateLimited}. A denied HTTP request fails with {@link TooManyRequestsException} (429 with
+ * Retry-After), a denied STOMP message is dropped and the sender is told on {@code /queue/rate-limit-error}.
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RateLimitAspect {
+    private static final String PROPERTY_PREFIX = "application.rate-limit.";
+
+    private final RateLimitService rateLimitService;
+    private final MessageSourceService messageSourceService;
+    private final WebSocketService webSocketService;
+    private final Environment environment;
+
+    @Value("${application.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Around("@annotation(rateLimited)")
+    public Object enforce(ProceedingJoinPoint joinPoint, RateLimited rateLimited) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+
+        Principal principal = findPrincipal(joinPoint.getArgs());
+        String key = rateLimited.name() + ":" + resolveSubject(rateLimited.scope(), principal);
+        int capacity = environment.getProperty(PROPERTY_PREFIX + rateLimited.name() + ".capacity",
+                Integer.class, rateLimited.capacity());
+        long periodSeconds = environment.getProperty(PROPERTY_PREFIX + rateLimited.name() + ".period-seconds",
+                Long.class, rateLimited.periodSeconds());
+
+        RateLimitService.Decision decision = rateLimitService.tryAcquire(key, capacity,
+                Duration.ofSeconds(periodSeconds));
+        if (decision.allowed()) {
+            return joinPoint.proceed();
+        }
+
+        log.warn("Rate limit {} exceeded by {}", rateLimited.name(), key);
+
+        MessageMapping messageMapping = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getAnnotation(MessageMapping.class);
+        if (messageMapping != null) {
+            rejectMessage(principal, String.join(",", messageMapping.value()), decision.retryAfterMillis());
+            return null;
+        }
+
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        throw new TooManyRequestsException(messageSourceService.get("too_many_requests",
+                new Object[]{retryAfterSeconds}), retryAfterSeconds);
+    }
+
+    private void rejectMessage(Principal principal, String destination, long retryAfterMillis) {
+        if (principal == null) {
+            return;
+        }
+
+        try {
+            webSocketService.sendRateLimitError(UUID.fromString(principal.getName()), destination, retryAfterMillis);
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot notify rate limited principal {}", principal.getName());
+        }
+    }
+
+    private String resolveSubject(RateLimited.Scope scope, Principal principal) {
+        return switch (scope) {
+            case GLOBAL -> "global";
+            case IP -> clientIp();
+            case USER -> {
+                if (principal != null) {
+                    yield principal.getName();
+                }
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && authentication.isAuthenticated()
+                        && !(authentication instanceof AnonymousAuthenticationToken)) {
+                    yield authentication.getName();
+                }
+                yield clientIp();
+            }
+        };
+    }
+
+    /**
+     * STOMP handlers receive the user as a {@link Principal} argument, there is no security context on that thread
+     */
+    private static Principal findPrincipal(Object[] args) {
+        return Arrays.stream(args)
+                .filter(Principal.class::isInstance)
+                .map(Principal.class::cast)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String clientIp() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return "unknown";
+        }
+
+        // Already the X-Real-IP of the nginx reverse proxy when the request came through it, see RemoteIpValve
+        return attributes.getRequest().getRemoteAddr();
+    }
+}
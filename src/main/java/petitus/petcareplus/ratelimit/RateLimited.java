@@ -0,0 +1,46 @@
+package petitus.petcareplus.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limit a controller method or STOMP {@code @MessageMapping} with a distributed token bucket. Capacity and
+ * period can be overridden per bucket with {@code application.rate-limit.{name}.capacity} and
+ * {@code application.rate-limit.{name}.period-seconds}. Methods sharing a name share the bucket.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+    /**
+     * Bucket name.
+     */
+    String name();
+
+    /**
+     * Burst size, also the number of requests refilled per period.
+     */
+    int capacity();
+
+    long periodSeconds();
+
+    Scope scope() default Scope.USER;
+
+    enum Scope {
+        /**
+         * One bucket per authenticated user, per client IP for anonymous requests.
+         */
+        USER,
+        /**
+         * One bucket per client IP.
+         */
+        IP,
+        /**
+         * One bucket for all callers.
+         */
+        GLOBAL
+    }
+}
@@ -2,6 +2,8 @@ package petitus.petcareplus.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Repository;
 import petitus.petcareplus.utils.enums.BookingStatus;
 import petitus.petcareplus.model.Booking;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,18 +30,25 @@ public interface BookingRepository extends JpaRepository<Booking, UUID>, JpaSpec
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.provider.id = :providerId ORDER BY b.createdAt DESC")
         List<Booking> findAllByProviderId(@Param("providerId") UUID providerId);
 
+        @EntityGraph(Booking.RESPONSE_GRAPH)
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.user.id = :userId ORDER BY b.createdAt DESC")
         Page<Booking> findAllByUserId(@Param("userId") UUID userId, Pageable pageable);
 
+        @EntityGraph(Booking.RESPONSE_GRAPH)
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.provider.id = :providerId ORDER BY b.createdAt DESC")
         Page<Booking> findAllByProviderId(@Param("providerId") UUID providerId, Pageable pageable);
 
+        @Override
+        @EntityGraph(Booking.RESPONSE_GRAPH)
+        Page<Booking> findAll(Specification<Booking> specification, Pageable pageable);
+
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.status = :status ORDER BY b.createdAt DESC")
         List<Booking> findAllByStatus(@Param("status") BookingStatus status);
 
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.user.id = :userId AND b.status = :status ORDER BY b.createdAt DESC")
         List<Booking> findAllByUserIdAndStatus(@Param("userId") UUID userId, @Param("status") BookingStatus status);
 
+        @EntityGraph(Booking.RESPONSE_GRAPH)
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.user.id = :userId AND b.status = :status ORDER BY b.createdAt DESC")
         Page<Booking> findAllByUserIdAndStatus(@Param("userId") UUID userId, @Param("status") BookingStatus status,
                         Pageable pageable);
@@ -47,6 +57,7 @@ public interface BookingRepository extends JpaRepository<Booking, UUID>, JpaSpec
         List<Booking> findAllByProviderIdAndStatus(@Param("providerId") UUID providerId,
                         @Param("status") BookingStatus status);
 
+        @EntityGraph(Booking.RESPONSE_GRAPH)
         @Query("SELECT b FROM Booking b WHERE b.deletedAt IS NULL AND b.provider.id = :providerId AND b.status = :status ORDER BY b.createdAt DESC")
         Page<Booking> findAllByProviderIdAndStatus(@Param("providerId") UUID providerId,
                         @Param("status") BookingStatus status,
@@ -66,10 +77,23 @@ public interface BookingRepository extends JpaRepository<Booking, UUID>, JpaSpec
                         @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate,
                         Pageable pageable);
 
-        @Query("SELECT COUNT(b) FROM Booking b WHERE b.deletedAt IS NULL AND b.status <> 'CANCELLED' AND b.provider.id = :providerId AND ((b.scheduledStartTime <= :endTime AND b.scheduledEndTime >= :startTime) OR (b.scheduledStartTime <= :startTime AND b.scheduledEndTime >= :startTime)) AND b.status NOT IN ('CANCELLED', 'COMPLETED')")
+        // Half-open intervals, a booking may start exactly when another one ends
+        @Query("SELECT COUNT(b) FROM Booking b WHERE b.deletedAt IS NULL AND b.provider.id = :providerId AND b.scheduledStartTime < :endTime AND b.scheduledEndTime > :startTime AND b.status NOT IN ('CANCELLED', 'COMPLETED')")
         Long countOverlappingBookings(@Param("providerId") UUID providerId, @Param("startTime") LocalDateTime startTime,
                         @Param("endTime") LocalDateTime endTime);
 
+        // [bookingId, providerId, scheduledStartTime, scheduledEndTime] of bookings that still block their slot
+        @Query("SELECT b.id, b.provider.id, b.scheduledStartTime, b.scheduledEndTime FROM Booking b WHERE b.deletedAt IS NULL AND b.provider.id IN :providerIds AND b.scheduledEndTime >= :after AND b.status NOT IN ('CANCELLED', 'COMPLETED')")
+        List<Object[]> findActiveSchedulesByProviderIds(@Param("providerIds") Collection<UUID> providerIds,
+                        @Param("after") LocalDateTime after);
+
+        /**
+         * Serialize bookings of one provider until the end of the current transaction, so the availability check
+         * and the insert cannot interleave with another booking for the same provider
+         */
+        @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtextextended(CAST(:providerId AS text), 0))) AS provider_lock", nativeQuery = true)
+        Long lockProviderSchedule(@Param("providerId") UUID providerId);
+
         @Query("SELECT COUNT(sb) > 0 FROM ServiceBooking sb WHERE sb.booking.id = :bookingId AND sb.service.id = :serviceId")
         boolean existsByBookingIdAndServiceId(@Param("bookingId") UUID bookingId, @Param("serviceId") UUID serviceId);
 
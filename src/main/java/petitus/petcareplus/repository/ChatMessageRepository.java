@@ -7,14 +7,19 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import petitus.petcareplus.model.ChatMessage;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
+    /**
+     * Offset page over the hot months only, {@link #findArchivedConversationPage} continues into the archive.
+     */
     @Query(value = """
             SELECT m FROM ChatMessage m
             WHERE (m.senderId = :userId1 AND m.recipientId = :userId2)
@@ -31,120 +36,130 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID>
           Pageable pageable
           );
 
+    /**
+     * Offset page over the archived months of a conversation, offset counted from its newest archived message.
+     * Each direction walks the conversation index backwards and stops after offset + limit rows.
+     */
+    @Query(value = """
+            SELECT m.* FROM (
+                (SELECT * FROM chat_messages_archive
+                 WHERE sender_id = :userId1 AND recipient_id = :userId2
+                 ORDER BY created_at DESC LIMIT :offset + :limit)
+                UNION ALL
+                (SELECT * FROM chat_messages_archive
+                 WHERE sender_id = :userId2 AND recipient_id = :userId1
+                 ORDER BY created_at DESC LIMIT :offset + :limit)
+            ) m
+            ORDER BY m.created_at DESC
+            OFFSET :offset LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessage> findArchivedConversationPage(
+        @Param("userId1") UUID userId1,
+        @Param("userId2") UUID userId2,
+        @Param("offset") long offset,
+        @Param("limit") int limit
+    );
+
+    /**
+     * Archived messages of a conversation, one range of the conversation index per direction.
+     */
+    @Query(value = """
+            SELECT (SELECT COUNT(*) FROM chat_messages_archive
+                    WHERE sender_id = :userId1 AND recipient_id = :userId2)
+                 + (SELECT COUNT(*) FROM chat_messages_archive
+                    WHERE sender_id = :userId2 AND recipient_id = :userId1)
+            """, nativeQuery = true)
+    long countArchivedConversation(@Param("userId1") UUID userId1, @Param("userId2") UUID userId2);
+
     @Query(value = """
             SELECT m FROM ChatMessage m
             WHERE ((m.senderId = :userId1 AND m.recipientId = :userId2)
                OR (m.senderId = :userId2 AND m.recipientId = :userId1))
-               AND m.createdAt < :lastMessageTime
             ORDER BY m.createdAt DESC
-            """, countQuery = """
-        SELECT COUNT(m) FROM ChatMessage m
-        WHERE ((m.senderId = :userId1 AND m.recipientId = :userId2)
-           OR (m.senderId = :userId2 AND m.recipientId = :userId1))
-           AND m.createdAt < :lastMessageTime
-        """)
-    Page<ChatMessage> findConversationBetweenUsersOlderThan(
+            """)
+    List<ChatMessage> findRecentConversationBetweenUsers(
         @Param("userId1") UUID userId1,
         @Param("userId2") UUID userId2,
-        @Param("lastMessageTime") LocalDateTime lastMessageTime,
         Pageable pageable
     );
 
     @Query(value = """
-        SELECT COUNT(*) FROM chat_messages
-        WHERE recipient_id = :userId AND is_read = false
-        """, nativeQuery = true)
-    long countUnreadMessages(@Param("userId") UUID userId);
-    
-    @Query(value = """
-        SELECT DISTINCT
-            CASE\s
-                WHEN m.sender_id = :currentUserId THEN m.recipient_id
-                ELSE m.sender_id
-            END as user_id,
-            (
-                SELECT MAX(m2.created_at)
-                FROM chat_messages m2
-                WHERE (m2.sender_id = m.sender_id AND m2.recipient_id = m.recipient_id)
-                   OR (m2.sender_id = m.recipient_id AND m2.recipient_id = m.sender_id)
-            ) as last_message_time
-        FROM chat_messages m
-        WHERE m.sender_id = :currentUserId OR m.recipient_id = :currentUserId
-        ORDER BY last_message_time DESC
-        LIMIT :limit
-       \s""", nativeQuery = true)
-    List<Object[]> findAllConversationUsersWithTimes(
-        @Param("currentUserId") UUID currentUserId,
-        @Param("limit") int limit
-    );
-    
-    @Query(value = """
-        SELECT DISTINCT
-            CASE\s
-                WHEN m.sender_id = :currentUserId THEN m.recipient_id
-                ELSE m.sender_id
-            END as user_id,
-            (
-                SELECT MAX(m2.created_at)
-                FROM chat_messages m2
-                WHERE (m2.sender_id = m.sender_id AND m2.recipient_id = m.recipient_id)
-                   OR (m2.sender_id = m.recipient_id AND m2.recipient_id = m.sender_id)
-            ) as last_message_time
-        FROM chat_messages m
-        WHERE (m.sender_id = :currentUserId OR m.recipient_id = :currentUserId)
-        AND (
-            SELECT MAX(m2.created_at)
-            FROM chat_messages m2
-            WHERE (m2.sender_id = m.sender_id AND m2.recipient_id = m.recipient_id)
-               OR (m2.sender_id = m.recipient_id AND m2.recipient_id = m.sender_id)
-        ) < :lastMessageTime
-        ORDER BY last_message_time DESC
-        LIMIT :limit
-       \s""", nativeQuery = true)
-    List<Object[]> findAllConversationUsersWithKeyset(
-        @Param("currentUserId") UUID currentUserId,
+            SELECT m FROM ChatMessage m
+            WHERE ((m.senderId = :userId1 AND m.recipientId = :userId2)
+               OR (m.senderId = :userId2 AND m.recipientId = :userId1))
+               AND m.createdAt < :lastMessageTime
+            ORDER BY m.createdAt DESC
+            """)
+    List<ChatMessage> findConversationBetweenUsersOlderThan(
+        @Param("userId1") UUID userId1,
+        @Param("userId2") UUID userId2,
         @Param("lastMessageTime") LocalDateTime lastMessageTime,
-        @Param("limit") int limit
+        Pageable pageable
     );
-    
+
+    /**
+     * Continue a conversation into the archived months. Each direction walks the conversation index backwards and
+     * stops after the limit, so only the newest matching archive partitions are read.
+     */
     @Query(value = """
-        SELECT m
-        FROM ChatMessage m
-        WHERE (m.senderId = :userId1 AND m.recipientId = :userId2)
-           OR (m.senderId = :userId2 AND m.recipientId = :userId1)
-        ORDER BY m.createdAt DESC
-        LIMIT 1
-        """)
-    ChatMessage findLatestMessageBetweenUsers(
+            SELECT m.* FROM (
+                (SELECT * FROM chat_messages_archive
+                 WHERE sender_id = :userId1 AND recipient_id = :userId2 AND created_at < :lastMessageTime
+                 ORDER BY created_at DESC LIMIT :limit)
+                UNION ALL
+                (SELECT * FROM chat_messages_archive
+                 WHERE sender_id = :userId2 AND recipient_id = :userId1 AND created_at < :lastMessageTime
+                 ORDER BY created_at DESC LIMIT :limit)
+            ) m
+            ORDER BY m.created_at DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ChatMessage> findArchivedConversationOlderThan(
         @Param("userId1") UUID userId1,
-        @Param("userId2") UUID userId2
+        @Param("userId2") UUID userId2,
+        @Param("lastMessageTime") LocalDateTime lastMessageTime,
+        @Param("limit") int limit
     );
 
+    /**
+     * Create the monthly partitions missing between the two months, returns how many were created.
+     */
+    @Transactional
+    @Query(value = "SELECT ensure_chat_message_partitions(:fromMonth, :toMonth)", nativeQuery = true)
+    int ensureMonthlyPartitions(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    /**
+     * Move the partitions of months before {@code hotFrom} to chat_messages_archive, returns the archived
+     * partitions. Returns nothing while another node is archiving.
+     */
+    @Transactional
+    @Query(value = "SELECT archive_chat_message_partitions(:hotFrom)", nativeQuery = true)
+    List<String> archivePartitionsBefore(@Param("hotFrom") LocalDate hotFrom);
+
+    /**
+     * Mark the sender's messages to the recipient as read and take them off the recipient's conversation
+     * unread counter in the same statement, so the counter cannot drift from the flags. Only the hot months are
+     * touched, messages still unread when their month is archived are taken off the counter by the archiver.
+     */
     @Modifying
     @Query(value = """
-        UPDATE chat_messages
-        SET is_read = true, read_at = CURRENT_TIMESTAMP
-        WHERE sender_id = :senderId AND recipient_id = :recipientId
-        AND is_read = false
-        RETURNING id
+        WITH marked AS (
+            UPDATE chat_messages
+            SET is_read = true, read_at = CURRENT_TIMESTAMP
+            WHERE sender_id = :senderId AND recipient_id = :recipientId
+            AND is_read = false
+            RETURNING id
+        ), counter AS (
+            UPDATE conversations
+            SET unread_count = GREATEST(unread_count - (SELECT COUNT(*) FROM marked), 0),
+                updated_at = CURRENT_TIMESTAMP
+            WHERE user_id = :recipientId AND partner_id = :senderId
+            AND EXISTS (SELECT 1 FROM marked)
+        )
+        SELECT id FROM marked
         """, nativeQuery = true)
     List<UUID> updateChatMessagesAsRead(
         @Param("senderId") UUID senderId,
         @Param("recipientId") UUID recipientId
     );
-
-    /**
-     * Get list of user IDs who have conversations with the specified user
-     * Optimized query for presence notifications - only returns user IDs, no timestamps
-     */
-    @Query(value = """
-        SELECT DISTINCT
-            CASE 
-                WHEN m.sender_id = :currentUserId THEN CAST(m.recipient_id AS VARCHAR)
-                ELSE CAST(m.sender_id AS VARCHAR)
-            END as user_id
-        FROM chat_messages m
-        WHERE m.sender_id = :currentUserId OR m.recipient_id = :currentUserId
-        """, nativeQuery = true)
-    List<String> findConversationPartnerIds(@Param("currentUserId") UUID currentUserId);
-} 
+}
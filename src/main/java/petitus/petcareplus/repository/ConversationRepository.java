@@ -0,0 +1,79 @@
+package petitus.petcareplus.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import petitus.petcareplus.model.Conversation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, UUID> {
+    /**
+     * Inbox page of a user, the last message preview is carried by the conversation itself
+     */
+    @Query("""
+        SELECT c FROM Conversation c
+        WHERE c.userId = :userId
+        ORDER BY c.lastMessageAt DESC
+        """)
+    List<Conversation> findInbox(@Param("userId") UUID userId, Pageable pageable);
+
+    @Query("""
+        SELECT c FROM Conversation c
+        WHERE c.userId = :userId AND c.lastMessageAt < :lastMessageTime
+        ORDER BY c.lastMessageAt DESC
+        """)
+    List<Conversation> findInboxOlderThan(
+        @Param("userId") UUID userId,
+        @Param("lastMessageTime") LocalDateTime lastMessageTime,
+        Pageable pageable
+    );
+
+    /**
+     * Point the (user, partner) row at the given message, creating it on the first message between the two.
+     * A message older than the current pointer (late commit) only adds to the unread counter.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO conversations (id, user_id, partner_id, last_message_id, last_message_at, last_sender_id,
+                                   last_message_content, unread_count, created_at, updated_at)
+        SELECT gen_random_uuid(), :userId, :partnerId, m.id, m.created_at, m.sender_id, m.content, :unreadIncrement,
+               CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+        FROM chat_messages m
+        WHERE m.id = :messageId
+        ON CONFLICT (user_id, partner_id) DO UPDATE SET
+            last_message_id = CASE WHEN EXCLUDED.last_message_at >= conversations.last_message_at
+                THEN EXCLUDED.last_message_id ELSE conversations.last_message_id END,
+            last_sender_id = CASE WHEN EXCLUDED.last_message_at >= conversations.last_message_at
+                THEN EXCLUDED.last_sender_id ELSE conversations.last_sender_id END,
+            last_message_content = CASE WHEN EXCLUDED.last_message_at >= conversations.last_message_at
+                THEN EXCLUDED.last_message_content ELSE conversations.last_message_content END,
+            last_message_at = GREATEST(EXCLUDED.last_message_at, conversations.last_message_at),
+            unread_count = conversations.unread_count + EXCLUDED.unread_count,
+            updated_at = CURRENT_TIMESTAMP
+        """, nativeQuery = true)
+    void upsertLastMessage(
+        @Param("userId") UUID userId,
+        @Param("partnerId") UUID partnerId,
+        @Param("messageId") UUID messageId,
+        @Param("unreadIncrement") long unreadIncrement
+    );
+
+    @Query(value = """
+        SELECT COALESCE(SUM(unread_count), 0) FROM conversations
+        WHERE user_id = :userId AND unread_count > 0
+        """, nativeQuery = true)
+    long sumUnreadCount(@Param("userId") UUID userId);
+
+    /**
+     * Everyone the user has exchanged messages with, an index-only scan of the (user_id, partner_id) key
+     */
+    @Query("SELECT c.partnerId FROM Conversation c WHERE c.userId = :userId")
+    List<UUID> findPartnerIdsByUserId(@Param("userId") UUID userId);
+}
@@ -1,9 +1,13 @@
 package petitus.petcareplus.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import petitus.petcareplus.model.FcmToken;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -11,4 +15,8 @@ import java.util.UUID;
 public interface FcmTokenRepository extends JpaRepository<FcmToken, UUID> {
     List<FcmToken> findByUserId(UUID userId);
     void deleteByToken(String token);
+
+    @Modifying
+    @Query("DELETE FROM FcmToken t WHERE t.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package petitus.petcareplus.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import petitus.petcareplus.model.NotificationCounter;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, UUID> {
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO notification_counters (user_id, unread_count)
+        VALUES (:userId, GREATEST(:delta, 0))
+        ON CONFLICT (user_id) DO UPDATE SET
+            unread_count = GREATEST(notification_counters.unread_count + :delta, 0)
+        """, nativeQuery = true)
+    void addUnreadCount(@Param("userId") UUID userId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = 0 WHERE c.userId = :userId")
+    void resetUnreadCount(@Param("userId") UUID userId);
+
+    @Query("SELECT c.unreadCount FROM NotificationCounter c WHERE c.userId = :userId")
+    Optional<Long> findUnreadCount(@Param("userId") UUID userId);
+}
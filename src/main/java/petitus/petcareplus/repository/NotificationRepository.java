@@ -2,11 +2,18 @@ package petitus.petcareplus.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import petitus.petcareplus.model.Notification;
+import petitus.petcareplus.utils.enums.Notifications;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,12 +21,66 @@ import java.util.UUID;
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Integer> {
 
-    @Query("SELECT n FROM Notification n WHERE n.userIdReceive = :userIdReceive AND n.deletedAt IS NULL")
-    List<Notification> findByUserIdReceive(UUID userIdReceive);
+    @Query("SELECT n FROM Notification n WHERE n.userIdReceive = :userIdReceive AND n.deletedAt IS NULL " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<Notification> findInbox(UUID userIdReceive, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userIdReceive = :userIdReceive AND n.deletedAt IS NULL " +
+            "AND (n.updatedAt < :lastUpdatedAt OR (n.updatedAt = :lastUpdatedAt AND n.id < :lastId)) " +
+            "ORDER BY n.updatedAt DESC, n.id DESC")
+    List<Notification> findInboxOlderThan(UUID userIdReceive, LocalDateTime lastUpdatedAt, UUID lastId,
+                                          Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.userIdReceive = :userIdReceive AND n.deletedAt IS NULL " +
+            "AND (n.updatedAt > :sinceUpdatedAt OR (n.updatedAt = :sinceUpdatedAt AND n.id > :sinceId)) " +
+            "ORDER BY n.updatedAt ASC, n.id ASC")
+    List<Notification> findInboxNewerThan(UUID userIdReceive, LocalDateTime sinceUpdatedAt, UUID sinceId,
+                                          Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :notificationId " +
+            "AND n.userIdReceive = :userIdReceive AND n.isRead = false AND n.deletedAt IS NULL")
+    int markAsRead(UUID notificationId, UUID userIdReceive);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userIdReceive = :userIdReceive AND n.isRead = false")
+    int markAllAsRead(UUID userIdReceive);
 
     @Query("SELECT n FROM Notification n WHERE n.deletedAt IS NULL AND n.id = :notificationId")
     Optional<Notification> findById(UUID notificationId);
 
     Page<Notification> findByDeletedAtIsNull(Pageable pageable);
 
+    /**
+     * Locked in id order, so concurrent merges neither lose each other's counts nor deadlock on these rows.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Notification n WHERE n.type = :type AND n.isRead = false AND n.deletedAt IS NULL " +
+            "AND n.userIdReceive IN :recipientIds AND n.userIdSend IN :senderIds ORDER BY n.id")
+    List<Notification> findLiveNotifications(Notifications type, Collection<UUID> recipientIds,
+                                             Collection<UUID> senderIds);
+
+    /**
+     * Create the live chat notification of a pair unless another transaction did, which the unique
+     * idx_notification_live_chat index detects.
+     *
+     * @return 1 when created, 0 when the pair already has a live notification.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO notification (id, user_id_send, user_id_receive, type, title, message, related_id,
+                                  aggregate_count, is_read, created_at, updated_at)
+        VALUES (:id, :senderId, :recipientId, 'CHAT', :title, :message, :relatedId,
+                :aggregateCount, false, :createdAt, :createdAt)
+        ON CONFLICT DO NOTHING
+        """, nativeQuery = true)
+    int insertLiveChatNotification(@Param("id") UUID id,
+                                   @Param("senderId") UUID senderId,
+                                   @Param("recipientId") UUID recipientId,
+                                   @Param("title") String title,
+                                   @Param("message") String message,
+                                   @Param("relatedId") UUID relatedId,
+                                   @Param("aggregateCount") int aggregateCount,
+                                   @Param("createdAt") LocalDateTime createdAt);
+
 }
@@ -1,10 +1,13 @@
 package petitus.petcareplus.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import petitus.petcareplus.model.PetBooking;
 import petitus.petcareplus.model.PetBookingId;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,4 +17,7 @@ public interface PetBookingRepository extends JpaRepository<PetBooking, PetBooki
     List<PetBooking> findByBookingId(UUID bookingId);
 
     List<PetBooking> findByPetId(UUID petId);
+
+    @Query("SELECT pb FROM PetBooking pb JOIN FETCH pb.pet JOIN FETCH pb.service WHERE pb.id.bookingId IN :bookingIds")
+    List<PetBooking> findAllByBookingIdIn(@Param("bookingIds") Collection<UUID> bookingIds);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Repository;
 import petitus.petcareplus.model.ServiceBooking;
 import petitus.petcareplus.model.ServiceBookingId;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,4 +15,6 @@ public interface ServiceBookingRepository extends JpaRepository<ServiceBooking,
     List<ServiceBooking> findByBookingId(UUID bookingId);
 
     List<ServiceBooking> findByServiceId(UUID serviceId);
+
+    List<ServiceBooking> findAllByIdBookingIdIn(Collection<UUID> bookingIds);
 }
\ No newline at end of file
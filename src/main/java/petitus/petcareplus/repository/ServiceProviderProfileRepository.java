@@ -1,11 +1,19 @@
 package petitus.petcareplus.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import petitus.petcareplus.model.profile.ServiceProviderProfile;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface ServiceProviderProfileRepository extends JpaRepository<ServiceProviderProfile, UUID>, JpaSpecificationExecutor<ServiceProviderProfile> {
     ServiceProviderProfile findByProfileId(UUID profileId);
+
+    // [providerId, availableTime]
+    @Query("SELECT spp.profile.user.id, spp.availableTime FROM ServiceProviderProfile spp WHERE spp.profile.user.id IN :providerIds")
+    List<Object[]> findAvailableTimesByProviderIds(@Param("providerIds") Collection<UUID> providerIds);
 }
@@ -0,0 +1,154 @@
+package petitus.petcareplus.security.jwt;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import petitus.petcareplus.utils.HashUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local cache of authenticated access tokens. Entries are keyed by the SHA-256 of the token, live until the
+ * token expires and are dropped on every node when a revocation is published on {@link #REVOCATION_CHANNEL}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationCache implements MessageListener {
+    public static final String REVOCATION_CHANNEL = "auth:token_revocations";
+
+    private static final String USER_REVOCATION_PREFIX = "user:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${application.security.jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, CachedAuthentication> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every revocation so that a validation started before a revocation cannot re-populate the cache.
+     */
+    private final AtomicLong revocationEpoch = new AtomicLong();
+
+    public long currentEpoch() {
+        return revocationEpoch.get();
+    }
+
+    public JwtUserDetails get(final String token) {
+        String key = HashUtil.sha256Hex(token);
+        CachedAuthentication cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+
+        if (cached.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key, cached);
+            return null;
+        }
+
+        return cached.userDetails();
+    }
+
+    public void put(final String token, final Date expiration, final JwtUserDetails userDetails, final long epoch) {
+        if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            evictForCapacity();
+        }
+
+        entries.put(HashUtil.sha256Hex(token), new CachedAuthentication(userDetails, expiration.getTime()));
+
+        // A revocation raced with this validation, drop what we just cached
+        if (revocationEpoch.get() != epoch) {
+            entries.remove(HashUtil.sha256Hex(token));
+        }
+    }
+
+    /**
+     * Revoke a single token on every node.
+     */
+    public void revoke(final String token) {
+        if (token == null) {
+            return;
+        }
+        String key = HashUtil.sha256Hex(token);
+        evict(key);
+        publish(key);
+    }
+
+    /**
+     * Revoke every cached token of a user on every node (role change, block, ...). Inside a transaction the
+     * revocation happens after commit, a request loading the user before that would cache the old state again.
+     */
+    public void revokeUser(final UUID userId) {
+        String message = USER_REVOCATION_PREFIX + userId;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(message);
+                    publish(message);
+                }
+            });
+            return;
+        }
+
+        evict(message);
+        publish(message);
+    }
+
+    @Override
+    public void onMessage(@NonNull final Message message, final byte[] pattern) {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evict(final String message) {
+        revocationEpoch.incrementAndGet();
+        if (message.startsWith(USER_REVOCATION_PREFIX)) {
+            UUID userId = UUID.fromString(message.substring(USER_REVOCATION_PREFIX.length()));
+            entries.values().removeIf(cached -> userId.equals(cached.userDetails().getId()));
+        } else {
+            entries.remove(message);
+        }
+    }
+
+    private void publish(final String message) {
+        try {
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.error("Error publishing token revocation: {}", e.getMessage(), e);
+        }
+    }
+
+    private void evictForCapacity() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(cached -> cached.expiresAt() <= now);
+
+        // Still full of live tokens, drop an arbitrary tenth; they will be re-validated against Redis on next use
+        Iterator<String> iterator = entries.keySet().iterator();
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record CachedAuthentication(JwtUserDetails userDetails, long expiresAt) {
+    }
+}
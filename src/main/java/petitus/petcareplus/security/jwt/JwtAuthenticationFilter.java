@@ -1,5 +1,6 @@
 package petitus.petcareplus.security.jwt;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import petitus.petcareplus.service.UserService;
@@ -25,14 +26,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserService userService;
 
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+
     @Override
     protected final void doFilterInternal(@NonNull final HttpServletRequest request,
                                           @NonNull final HttpServletResponse response,
                                           @NonNull final FilterChain filterChain) throws ServletException, IOException {
         String token = jwtTokenProvider.extractJwtFromRequest(request);
-        if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token, request)) {
-            String id = jwtTokenProvider.getUserIdFromToken(token);
-            UserDetails user = userService.loadUserById(id);
+        if (StringUtils.hasText(token)) {
+            UserDetails user = jwtAuthenticationCache.get(token);
+            if (user == null) {
+                user = authenticate(token, request);
+            }
 
             if (Objects.nonNull(user)) {
                 UsernamePasswordAuthenticationToken auth =
@@ -46,4 +51,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Full validation against the token store and the database, the result is cached until the token expires
+     */
+    private UserDetails authenticate(final String token, final HttpServletRequest request) {
+        long epoch = jwtAuthenticationCache.currentEpoch();
+        Claims claims = jwtTokenProvider.validateAccessToken(token, request);
+        if (claims == null) {
+            return null;
+        }
+
+        UserDetails user = userService.loadUserById(claims.getSubject());
+        if (user instanceof JwtUserDetails jwtUserDetails) {
+            jwtAuthenticationCache.put(token, claims.getExpiration(), jwtUserDetails, epoch);
+        }
+
+        return user;
+    }
+}
@@ -3,14 +3,13 @@ package petitus.petcareplus.security.jwt;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import petitus.petcareplus.exceptions.ResourceNotFoundException;
-import petitus.petcareplus.model.JwtToken;
 import petitus.petcareplus.service.JwtTokenService;
 
 import javax.crypto.SecretKey;
@@ -24,6 +23,12 @@ import static petitus.petcareplus.utils.Constants.TOKEN_TYPE;
 @RequiredArgsConstructor
 public class JwtTokenProvider {
 
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+
+    public static final String ACCESS_TOKEN_TYPE = "access";
+
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
@@ -39,6 +44,26 @@ public class JwtTokenProvider {
 
     private final HttpServletRequest httpServletRequest;
 
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
+    /**
+     * Verify the signature and expiration of the token and return its claims.
+     * Callers should parse once and pass the claims along instead of re-parsing the token.
+     */
+    public Claims parseClaims(final String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
     public Date getIssuedAt(final String token) {
         return extractClaims(token, Claims::getIssuedAt);
     }
@@ -52,13 +77,7 @@ public class JwtTokenProvider {
     }
 
     public <T> T extractClaims(final String token, final Function<Claims, T> claimsResolver) {
-        return claimsResolver.apply(
-                Jwts.parser()
-                        .verifyWith(getSecretKey())
-                        .build()
-                        .parseSignedClaims(token)
-                        .getPayload()
-        );
+        return claimsResolver.apply(parseClaims(token));
     }
 
     public String extractJwtFromBearerString(final String bearer) {
@@ -73,51 +92,61 @@ public class JwtTokenProvider {
         return extractJwtFromBearerString(request.getHeader(TOKEN_HEADER));
     }
 
-    private boolean isTokenExpired(final String token) {
-        return extractClaims(token, Claims::getExpiration).before(new Date());
-    }
-
     /**
      * This prevents the refresh token from being validated as an access token
      */
+    public boolean isRefreshToken(final Claims claims) {
+        Object type = claims.get(TOKEN_TYPE_CLAIM);
+        if (type != null) {
+            return REFRESH_TOKEN_TYPE.equals(type);
+        }
+
+        // Tokens issued before the typ claim was introduced
+        return claims.getExpiration().getTime() - claims.getIssuedAt().getTime() == refreshTokenExpiresIn;
+    }
+
     public boolean isRefreshToken(final String token) {
         try {
-            return getExpiration(token).getTime() - getIssuedAt(token).getTime() == refreshTokenExpiresIn;
+            return isRefreshToken(parseClaims(token));
         } catch (JwtException e) {
             return false;
         }
     }
 
-    // Modify the validateToken method to ensure it only validates access tokens
     public boolean validateToken(final String token) {
-        return validateToken(token, true) && !isRefreshToken(token);
+        return validateAccessToken(token) != null;
     }
 
     public boolean validateRefreshToken(final String token) {
-        return validateToken(token, true);
+        Claims claims = parseClaims(token);
+        return isRefreshToken(claims) && isStored(token);
     }
 
-    public boolean validateToken(final String token, final boolean isHttp) {
-        extractClaims(token, Claims::getExpiration);
-        try {
-            JwtToken jwtToken = jwtTokenService.findByTokenOrRefreshToken(token);
-            if (jwtToken == null) {
-                return false;
-            }
-        } catch (ResourceNotFoundException e) {
-            return false;
+    /**
+     * Validate an access token with a single parse.
+     *
+     * @return the verified claims, or null when the token is a refresh token or has been revoked
+     */
+    public Claims validateAccessToken(final String token) {
+        Claims claims = parseClaims(token);
+        if (isRefreshToken(claims) || !isStored(token)) {
+            return null;
         }
 
-        return !isTokenExpired(token);
+        return claims;
     }
 
     public boolean validateToken(final String token, final HttpServletRequest httpServletRequest) {
+        return validateAccessToken(token, httpServletRequest) != null;
+    }
+
+    public Claims validateAccessToken(final String token, final HttpServletRequest httpServletRequest) {
         try {
-            boolean isTokenValid = validateToken(token);
-            if (!isTokenValid) {
+            Claims claims = validateAccessToken(token);
+            if (claims == null) {
                 httpServletRequest.setAttribute("notfound", "Token is not found in cache");
             }
-            return isTokenValid;
+            return claims;
         } catch (UnsupportedJwtException e) {
             httpServletRequest.setAttribute("unsupported", "Unsupported JWT token!");
         } catch (MalformedJwtException e) {
@@ -128,28 +157,29 @@ public class JwtTokenProvider {
             httpServletRequest.setAttribute("illegal", "JWT claims string is empty.");
         }
 
-        return false;
+        return null;
     }
 
-    public String generateTokenByUserId(final String userId, final Long expires) {
+    private boolean isStored(final String token) {
+        return jwtTokenService.exists(token);
+    }
+
+    public String generateTokenByUserId(final String userId, final Long expires, final String type) {
+        Date issuedAt = new Date();
         return Jwts.builder()
-                .setSubject(userId)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expires))
-                .signWith(getSecretKey())
+                .subject(userId)
+                .claim(TOKEN_TYPE_CLAIM, type)
+                .issuedAt(issuedAt)
+                .expiration(new Date(issuedAt.getTime() + expires))
+                .signWith(signingKey)
                 .compact();
     }
 
     public String generateToken(final String userId) {
-        return generateTokenByUserId(userId, tokenExpiresIn);
+        return generateTokenByUserId(userId, tokenExpiresIn, ACCESS_TOKEN_TYPE);
     }
 
     public String generateRefreshToken(final String userId) {
-        return generateTokenByUserId(userId, refreshTokenExpiresIn);
-    }
-
-    private SecretKey getSecretKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return generateTokenByUserId(userId, refreshTokenExpiresIn, REFRESH_TOKEN_TYPE);
     }
-}
\ No newline at end of file
+}
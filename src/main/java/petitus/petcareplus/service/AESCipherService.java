@@ -3,6 +3,8 @@ package petitus.petcareplus.service;
 import org.springframework.stereotype.Service;
 import petitus.petcareplus.utils.AESCipher;
 
+import javax.crypto.spec.SecretKeySpec;
+
 @Service
 public class AESCipherService {
     public String encrypt(String plainText, String secretKey) throws Exception {
@@ -12,4 +14,12 @@ public class AESCipherService {
     public String decrypt(String encryptedText, String secretKey) throws Exception {
         return AESCipher.decrypt(encryptedText, secretKey);
     }
+
+    public String encrypt(String plainText, SecretKeySpec key) throws Exception {
+        return AESCipher.encrypt(plainText, key);
+    }
+
+    public String decrypt(String encryptedText, SecretKeySpec key, SecretKeySpec legacyKey) throws Exception {
+        return AESCipher.decrypt(encryptedText, key, legacyKey);
+    }
 }
\ No newline at end of file
@@ -6,9 +6,14 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Active chats of a user live in one Redis hash ({@code chat:active_chats:{userId}}) mapping the other user id to
+ * the time the entry expires, so every chat keeps its own TTL and disconnect cleanup is a single DEL.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -17,20 +22,29 @@ public class ActiveChatService {
     private static final String REDIS_ACTIVE_CHATS_KEY = "chat:active_chats";
     private static final int ACTIVE_CHAT_TTL_SECONDS = 600; // 10 minutes TTL for active chats
 
+    // The check runs on every message send, remember answers briefly
+    private static final long NEAR_CACHE_TTL_MILLIS = 2_000;
+    private static final int NEAR_CACHE_MAX_SIZE = 10_000;
+
     private final RedisTemplate<String, String> redisTemplate;
 
+    private final Map<String, CachedActiveChat> nearCache = new ConcurrentHashMap<>();
+
     /**
      * Handle active chat tracking - when user enters or leaves a specific chat conversation
      */
     public void handleActiveChat(UUID userId, UUID otherUserId, boolean isActive) {
         try {
-            String redisKey = REDIS_ACTIVE_CHATS_KEY + ":" + userId.toString() + ":" + otherUserId.toString();
-            
+            String redisKey = getRedisKey(userId);
+
             if (isActive) {
-                redisTemplate.opsForValue().set(redisKey, "active", Duration.ofSeconds(ACTIVE_CHAT_TTL_SECONDS));
+                long expiresAt = System.currentTimeMillis() + ACTIVE_CHAT_TTL_SECONDS * 1000L;
+                redisTemplate.opsForHash().put(redisKey, otherUserId.toString(), String.valueOf(expiresAt));
+                redisTemplate.expire(redisKey, Duration.ofSeconds(ACTIVE_CHAT_TTL_SECONDS));
             } else {
-                redisTemplate.delete(redisKey);
+                redisTemplate.opsForHash().delete(redisKey, otherUserId.toString());
             }
+            nearCache.remove(getCacheKey(userId, otherUserId));
         } catch (Exception e) {
             log.error("Error handling active chat for users {} and {}: {}", userId, otherUserId, e.getMessage(), e);
         }
@@ -40,9 +54,23 @@ public class ActiveChatService {
      * Check if a user is currently in an active chat with another user
      */
     public boolean isUserInActiveChatWith(UUID userId, UUID otherUserId) {
+        String cacheKey = getCacheKey(userId, otherUserId);
+        long now = System.currentTimeMillis();
+
+        CachedActiveChat cached = nearCache.get(cacheKey);
+        if (cached != null && cached.cachedAt() + NEAR_CACHE_TTL_MILLIS > now) {
+            return cached.active();
+        }
+
         try {
-            String redisKey = REDIS_ACTIVE_CHATS_KEY + ":" + userId.toString() + ":" + otherUserId.toString();
-            return Boolean.TRUE.equals(redisTemplate.hasKey(redisKey));
+            Object expiresAt = redisTemplate.opsForHash().get(getRedisKey(userId), otherUserId.toString());
+            boolean active = expiresAt != null && Long.parseLong(expiresAt.toString()) > now;
+
+            if (nearCache.size() >= NEAR_CACHE_MAX_SIZE) {
+                nearCache.clear();
+            }
+            nearCache.put(cacheKey, new CachedActiveChat(active, now));
+            return active;
         } catch (Exception e) {
             log.error("Error checking active chat status for users {} and {}: {}", userId, otherUserId, e.getMessage(), e);
             return false;
@@ -54,14 +82,21 @@ public class ActiveChatService {
      */
     public void cleanupUserActiveChats(UUID userId) {
         try {
-            String pattern = REDIS_ACTIVE_CHATS_KEY + ":" + userId.toString() + ":*";
-            Set<String> activeChatsKeys = redisTemplate.keys(pattern);
-            
-            if (!activeChatsKeys.isEmpty()) {
-                redisTemplate.delete(activeChatsKeys);
-            }
+            redisTemplate.delete(getRedisKey(userId));
+            nearCache.keySet().removeIf(cacheKey -> cacheKey.startsWith(userId + ":"));
         } catch (Exception e) {
             log.error("Error cleaning up active chats for user {}: {}", userId, e.getMessage(), e);
         }
     }
-} 
+
+    private static String getRedisKey(UUID userId) {
+        return REDIS_ACTIVE_CHATS_KEY + ":" + userId;
+    }
+
+    private static String getCacheKey(UUID userId, UUID otherUserId) {
+        return userId + ":" + otherUserId;
+    }
+
+    private record CachedActiveChat(boolean active, long cachedAt) {
+    }
+}
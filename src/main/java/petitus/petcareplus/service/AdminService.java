@@ -17,6 +17,7 @@ import petitus.petcareplus.exceptions.BadRequestException;
 import petitus.petcareplus.model.Role;
 import petitus.petcareplus.model.User;
 import petitus.petcareplus.repository.UserRepository;
+import petitus.petcareplus.security.jwt.JwtAuthenticationCache;
 import petitus.petcareplus.utils.Constants;
 
 @Slf4j
@@ -29,6 +30,8 @@ public class AdminService {
     private final MessageSourceService messageSourceService;
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final JwtTokenService jwtTokenService;
 
     @Transactional
     public User changeUserRole(String userId, String roleName) {
@@ -44,6 +47,7 @@ public class AdminService {
 
         Role role = roleService.findByName(roleEnum);
         user.setRole(role);
+        jwtAuthenticationCache.revokeUser(user.getId());
 
         return userRepository.save(user);
     }
@@ -97,6 +101,10 @@ public class AdminService {
         }
         user.setBlockedAt(LocalDateTime.now());
 
+        // Blocked users cannot log in, also end the sessions they already have
+        jwtTokenService.deleteAllByUserId(user.getId());
+        jwtAuthenticationCache.revokeUser(user.getId());
+
         return userRepository.save(user);
     }
 
@@ -25,6 +25,7 @@ import petitus.petcareplus.model.JwtToken;
 import petitus.petcareplus.model.PasswordResetToken;
 import petitus.petcareplus.model.User;
 import petitus.petcareplus.repository.UserRepository;
+import petitus.petcareplus.security.jwt.JwtAuthenticationCache;
 import petitus.petcareplus.security.jwt.JwtTokenProvider;
 import petitus.petcareplus.security.jwt.JwtUserDetails;
 import petitus.petcareplus.utils.Constants;
@@ -54,6 +55,8 @@ public class AuthService {
 
     private final JwtTokenService jwtTokenService;
 
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+
     private final PasswordResetTokenService passwordResetTokenService;
     private final ApplicationEventPublisher eventPublisher;
 
@@ -137,8 +140,9 @@ public class AuthService {
 
         String newAccessToken = jwtTokenProvider.generateToken(userId.toString());
 
-        oldToken.setToken(newAccessToken);
-        jwtTokenService.save(oldToken);
+        String oldAccessToken = oldToken.getToken();
+        jwtTokenService.rotateAccessToken(oldToken, newAccessToken);
+        jwtAuthenticationCache.revoke(oldAccessToken);
 
         return TokenResponse.builder()
                 .token(newAccessToken)
@@ -158,6 +162,7 @@ public class AuthService {
         JwtToken jwtToken = jwtTokenService.findByUserIdAndToken(userId, token);
 
         jwtTokenService.delete(jwtToken);
+        jwtAuthenticationCache.revoke(token);
     }
 
     public TokenResponse generateTokens(final UUID id, final boolean isServiceProvider) {
@@ -184,6 +189,14 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * Revoke every session of a user, on the token store and on every node's authentication cache
+     */
+    public void revokeAllSessions(final UUID userId) {
+        jwtTokenService.deleteAllByUserId(userId);
+        jwtAuthenticationCache.revokeUser(userId);
+    }
+
     @Transactional
     public void changePassword(ChangePasswordRequest request) {
 
@@ -227,6 +240,9 @@ public class AuthService {
 
         // Delete the used token
         passwordResetTokenService.deleteByUserId(user.getId());
+
+        // Sign out every session started with the old password
+        revokeAllSessions(user.getId());
     }
 
     /**
@@ -3,7 +3,9 @@ package petitus.petcareplus.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -16,6 +18,7 @@ import petitus.petcareplus.dto.response.booking.BookingPetServiceResponse;
 import petitus.petcareplus.dto.response.booking.BookingResponse;
 import petitus.petcareplus.dto.response.service.ProviderServiceResponse;
 import petitus.petcareplus.dto.response.user.UserResponse;
+import petitus.petcareplus.event.ProviderScheduleChangedEvent;
 import petitus.petcareplus.utils.PageRequestBuilder;
 import petitus.petcareplus.utils.enums.BookingStatus;
 import petitus.petcareplus.utils.enums.PaymentStatus;
@@ -50,6 +53,7 @@ public class BookingService {
     private final ProviderServiceRepository providerServiceRepository;
     private final MessageSourceService messageSourceService;
     private final WalletService walletService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Limit
     private static final BigDecimal MAX_TOTAL_PRICE = new BigDecimal("500000000");
@@ -139,6 +143,9 @@ public class BookingService {
 
         petBookingRepository.saveAll(petBookings);
 
+        eventPublisher.publishEvent(new ProviderScheduleChangedEvent(provider.getId(), savedBooking.getId(),
+                savedBooking.getScheduledStartTime(), savedBooking.getScheduledEndTime(), true));
+
         // Return response
         return mapToBookingResponse(savedBooking);
     }
@@ -190,6 +197,14 @@ public class BookingService {
         }
 
         Booking updatedBooking = bookingRepository.save(booking);
+
+        if (request.getStatus() == BookingStatus.CANCELLED || request.getStatus() == BookingStatus.COMPLETED) {
+            // The slot is free again
+            eventPublisher.publishEvent(new ProviderScheduleChangedEvent(updatedBooking.getProvider().getId(),
+                    updatedBooking.getId(), updatedBooking.getScheduledStartTime(),
+                    updatedBooking.getScheduledEndTime(), false));
+        }
+
         return mapToBookingResponse(updatedBooking);
     }
 
@@ -236,14 +251,16 @@ public class BookingService {
     public Page<BookingResponse> getUserBookings(UUID userId, PaginationCriteria pagination) {
         PageRequest pageRequest = PageRequestBuilder.build(pagination);
         Page<Booking> bookings = bookingRepository.findAllByUserId(userId, pageRequest);
-        return bookings.map(this::mapToBookingResponse);
+        return new PageImpl<>(mapToBookingResponses(bookings.getContent()), bookings.getPageable(),
+                bookings.getTotalElements());
     }
 
     @Transactional(readOnly = true)
     public Page<BookingResponse> getProviderBookings(UUID providerId, PaginationCriteria pagination) {
         PageRequest pageRequest = PageRequestBuilder.build(pagination);
         Page<Booking> bookings = bookingRepository.findAllByProviderId(providerId, pageRequest);
-        return bookings.map(this::mapToBookingResponse);
+        return new PageImpl<>(mapToBookingResponses(bookings.getContent()), bookings.getPageable(),
+                bookings.getTotalElements());
     }
 
     @Transactional(readOnly = true)
@@ -253,7 +270,8 @@ public class BookingService {
 
             PageRequest pageRequest = PageRequestBuilder.build(pagination);
             Page<Booking> bookings = bookingRepository.findAllByUserIdAndStatus(userId, status, pageRequest);
-            return bookings.map(this::mapToBookingResponse);
+            return new PageImpl<>(mapToBookingResponses(bookings.getContent()), bookings.getPageable(),
+                    bookings.getTotalElements());
         } catch (IllegalArgumentException e) {
             throw new BadRequestException(messageSourceService.get("invalid_booking_status"));
         }
@@ -265,7 +283,8 @@ public class BookingService {
         try {
             PageRequest pageRequest = PageRequestBuilder.build(pagination);
             Page<Booking> bookings = bookingRepository.findAllByProviderIdAndStatus(providerId, status, pageRequest);
-            return bookings.map(this::mapToBookingResponse);
+            return new PageImpl<>(mapToBookingResponses(bookings.getContent()), bookings.getPageable(),
+                    bookings.getTotalElements());
         } catch (IllegalArgumentException e) {
             throw new BadRequestException(messageSourceService.get("invalid_booking_status"));
         }
@@ -274,7 +293,8 @@ public class BookingService {
     // Helper methods
 
     private void validateBookingTime(LocalDateTime start, LocalDateTime end) {
-        if (start.isAfter(end)) {
+        // Bookings are half-open, an empty one would never overlap anything
+        if (!start.isBefore(end)) {
             throw new BadRequestException(messageSourceService.get("invalid_booking_time_range"));
         }
 
@@ -284,6 +304,9 @@ public class BookingService {
     }
 
     private void checkProviderAvailability(UUID providerId, LocalDateTime start, LocalDateTime end) {
+        // Held until commit, a concurrent booking for this provider waits here and then sees our insert
+        bookingRepository.lockProviderSchedule(providerId);
+
         Long overlappingCount = bookingRepository.countOverlappingBookings(providerId, start, end);
         if (overlappingCount > 0) {
             throw new BadRequestException(messageSourceService.get("provider_not_available"));
@@ -392,28 +415,50 @@ public class BookingService {
     }
 
     private BookingResponse mapToBookingResponse(Booking booking) {
-        // Fetch pet bookings
-        List<PetBooking> petBookings = petBookingRepository.findByBookingId(booking.getId());
-        List<ServiceBooking> serviceBookings = serviceBookingRepository.findByBookingId(booking.getId());
+        return mapToBookingResponses(List.of(booking)).get(0);
+    }
 
-        // Map to response DTOs
-        List<BookingPetServiceResponse> petServiceResponses = new ArrayList<>();
+    private List<BookingResponse> mapToBookingResponses(List<Booking> bookings) {
+        Map<UUID, List<BookingPetServiceResponse>> petServicesByBooking = loadPetServices(bookings);
 
-        Map<UUID, BigDecimal> servicePriceMap = serviceBookings.stream()
-                .collect(Collectors.toMap(sb -> sb.getId().getServiceId(), ServiceBooking::getPrice));
+        return bookings.stream()
+                .map(booking -> mapToBookingResponse(booking,
+                        petServicesByBooking.getOrDefault(booking.getId(), new ArrayList<>())))
+                .toList();
+    }
+
+    /**
+     * Load the pets and services of all given bookings with a fixed number of queries, whatever the page size
+     */
+    private Map<UUID, List<BookingPetServiceResponse>> loadPetServices(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return Map.of();
+        }
 
-        for (PetBooking pb : petBookings) {
+        List<UUID> bookingIds = bookings.stream().map(Booking::getId).toList();
+
+        Map<ServiceBookingId, BigDecimal> servicePriceMap = serviceBookingRepository.findAllByIdBookingIdIn(bookingIds)
+                .stream()
+                .collect(Collectors.toMap(ServiceBooking::getId, ServiceBooking::getPrice));
+
+        Map<UUID, List<BookingPetServiceResponse>> petServicesByBooking = new HashMap<>();
+        for (PetBooking pb : petBookingRepository.findAllByBookingIdIn(bookingIds)) {
+            UUID bookingId = pb.getId().getBookingId();
             BookingPetServiceResponse petService = BookingPetServiceResponse.builder()
                     .petId(pb.getId().getPetId())
                     .petName(pb.getPet().getName())
                     .petImageUrl(pb.getPet().getImageUrl())
                     .serviceId(pb.getId().getServiceId())
                     .serviceName(pb.getService().getName())
-                    .price(servicePriceMap.get(pb.getId().getServiceId()))
+                    .price(servicePriceMap.get(new ServiceBookingId(bookingId, pb.getId().getServiceId())))
                     .build();
-            petServiceResponses.add(petService);
+            petServicesByBooking.computeIfAbsent(bookingId, id -> new ArrayList<>()).add(petService);
         }
 
+        return petServicesByBooking;
+    }
+
+    private BookingResponse mapToBookingResponse(Booking booking, List<BookingPetServiceResponse> petServiceResponses) {
         return BookingResponse.builder()
                 .id(booking.getId())
                 .serviceName(booking.getProviderService().getService().getName())
@@ -437,28 +482,20 @@ public class BookingService {
     }
 
     private AdminBookingResponse mapToAdminBookingResponse(Booking booking) {
-        // Fetch pet bookings
-        List<PetBooking> petBookings = petBookingRepository.findByBookingId(booking.getId());
-        List<ServiceBooking> serviceBookings = serviceBookingRepository.findByBookingId(booking.getId());
-
-        // Map to response DTOs
-        List<BookingPetServiceResponse> petServiceResponses = new ArrayList<>();
+        return mapToAdminBookingResponses(List.of(booking)).get(0);
+    }
 
-        Map<UUID, BigDecimal> servicePriceMap = serviceBookings.stream()
-                .collect(Collectors.toMap(sb -> sb.getId().getServiceId(), ServiceBooking::getPrice));
+    private List<AdminBookingResponse> mapToAdminBookingResponses(List<Booking> bookings) {
+        Map<UUID, List<BookingPetServiceResponse>> petServicesByBooking = loadPetServices(bookings);
 
-        for (PetBooking pb : petBookings) {
-            BookingPetServiceResponse petService = BookingPetServiceResponse.builder()
-                    .petId(pb.getId().getPetId())
-                    .petName(pb.getPet().getName())
-                    .petImageUrl(pb.getPet().getImageUrl())
-                    .serviceId(pb.getId().getServiceId())
-                    .serviceName(pb.getService().getName())
-                    .price(servicePriceMap.get(pb.getId().getServiceId()))
-                    .build();
-            petServiceResponses.add(petService);
-        }
+        return bookings.stream()
+                .map(booking -> mapToAdminBookingResponse(booking,
+                        petServicesByBooking.getOrDefault(booking.getId(), new ArrayList<>())))
+                .toList();
+    }
 
+    private AdminBookingResponse mapToAdminBookingResponse(Booking booking,
+            List<BookingPetServiceResponse> petServiceResponses) {
         UserResponse userResponse = UserResponse.builder()
                 .id(booking.getUser().getId().toString())
                 .name(booking.getUser().getName())
@@ -510,7 +547,8 @@ public class BookingService {
         PageRequest pageRequest = PageRequestBuilder.build(pagination);
         Page<Booking> bookings = bookingRepository.findAll(specification, pageRequest);
 
-        return bookings.map(this::mapToAdminBookingResponse);
+        return new PageImpl<>(mapToAdminBookingResponses(bookings.getContent()), bookings.getPageable(),
+                bookings.getTotalElements());
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,193 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional local processing of chat images: the original is decoded once and the thumbnail, medium and large
+ * variants are cropped, scaled and re-encoded as JPEG in parallel, then stored through the {@link ImageStore} once
+ * all of them are encoded.
+ * Re-encoding drops all metadata (EXIF, GPS, ...) of the original.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatImageProcessor {
+    private static final int THUMBNAIL_SIZE = 150;
+    private static final int MEDIUM_SIZE = 400;
+    private static final int LARGE_SIZE = 800;
+
+    private static final String VARIANT_CONTENT_TYPE = "image/jpeg";
+
+    private final ImageStore imageStore;
+
+    @Value("${application.chat.images.local-processing:false}")
+    private boolean enabled;
+
+    @Value("${application.chat.images.processing-threads:3}")
+    private int processingThreads;
+
+    @Value("${application.chat.images.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            executor = Executors.newFixedThreadPool(processingThreads);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decode the image and store its variants.
+     *
+     * @param imageStream Encoded original image.
+     * @return URLs of the stored variants.
+     */
+    public ImageVariants process(InputStream imageStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        BufferedImage original = ImageIO.read(imageStream);
+        if (original == null) {
+            throw new IOException("Unsupported image format");
+        }
+
+        // Encode every variant before storing any, a failed encode must not leave the others orphaned in the store
+        List<byte[]> contents = awaitAll(List.of(
+                executor.submit(() -> encodeVariant(original, THUMBNAIL_SIZE)),
+                executor.submit(() -> encodeVariant(original, MEDIUM_SIZE)),
+                executor.submit(() -> encodeVariant(original, LARGE_SIZE))));
+
+        String baseName = UUID.randomUUID().toString();
+        List<String> urls = awaitAll(List.of(
+                executor.submit(() -> storeVariant(baseName, THUMBNAIL_SIZE, contents.get(0))),
+                executor.submit(() -> storeVariant(baseName, MEDIUM_SIZE, contents.get(1))),
+                executor.submit(() -> storeVariant(baseName, LARGE_SIZE, contents.get(2)))));
+
+        log.debug("Processed {}x{} chat image in {}ms", original.getWidth(), original.getHeight(),
+                System.currentTimeMillis() - startTime);
+        return new ImageVariants(urls.get(0), urls.get(1), urls.get(2));
+    }
+
+    private byte[] encodeVariant(BufferedImage original, int size) throws IOException {
+        return encodeJpeg(cropAndScale(original, size));
+    }
+
+    private String storeVariant(String baseName, int size, byte[] content) throws IOException {
+        return imageStore.store(baseName + "_" + size + ".jpg", content, VARIANT_CONTENT_TYPE);
+    }
+
+    private static <T> List<T> awaitAll(List<Future<T>> futures) throws IOException {
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing image", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to process image", e.getCause());
+        }
+    }
+
+    /**
+     * Center crop to a square and scale down to size x size, same framing as the previous remote "fill" transform.
+     */
+    private static BufferedImage cropAndScale(BufferedImage original, int size) {
+        int side = Math.min(original.getWidth(), original.getHeight());
+        BufferedImage current = original.getSubimage(
+                (original.getWidth() - side) / 2,
+                (original.getHeight() - side) / 2,
+                side,
+                side);
+
+        // Halve step by step while far above the target, a single bilinear pass would alias
+        int currentSide = side;
+        while (currentSide / 2 >= size) {
+            currentSide /= 2;
+            current = draw(current, currentSide);
+        }
+
+        return draw(current, Math.min(size, currentSide));
+    }
+
+    private static BufferedImage draw(BufferedImage source, int side) {
+        // JPEG has no alpha channel, flatten onto white
+        BufferedImage target = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, side, side);
+            graphics.drawImage(source, 0, 0, side, side, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    public record ImageVariants(String thumbnailUrl, String mediumUrl, String largeUrl) {
+    }
+}
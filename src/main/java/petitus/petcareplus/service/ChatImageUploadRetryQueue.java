@@ -0,0 +1,183 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import petitus.petcareplus.configuration.AsyncConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry queue for chat image uploads that failed on a transient storage error. The image is spooled to
+ * {@code retry-directory} as {@code {messageId}_{attempt}_{dueAtMillis}.img}, so pending retries survive a restart of
+ * this node, and a poller hands due files back to the upload executor. The delay doubles with every attempt up to
+ * {@code retry-max-backoff}, after {@code retry-max-attempts} the upload is failed for good.
+ * Upload queue depth, in-flight uploads, pending retries and upload latency are logged every {@code stats-interval}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatImageUploadRetryQueue {
+    private static final String SPOOL_SUFFIX = ".img";
+
+    // Resolved lazily, the upload service schedules its retries here
+    private final ObjectProvider<ChatImageUploadService> chatImageUploadService;
+
+    @Qualifier(AsyncConfig.CHAT_IMAGE_UPLOAD_EXECUTOR)
+    private final ThreadPoolTaskExecutor chatImageUploadExecutor;
+
+    @Qualifier(AsyncConfig.CHAT_IMAGE_UPLOAD_RETRY_SCHEDULER)
+    private final ThreadPoolTaskScheduler retryScheduler;
+
+    @Value("${application.chat.images.retry-directory:${java.io.tmpdir}/chat-image-retries}")
+    private String retryDirectory;
+
+    @Value("${application.chat.images.retry-max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${application.chat.images.retry-initial-backoff:2000}")
+    private long initialBackoff;
+
+    @Value("${application.chat.images.retry-max-backoff:120000}")
+    private long maxBackoff;
+
+    @Value("${application.chat.images.retry-poll-interval:1000}")
+    private long pollInterval;
+
+    @Value("${application.chat.images.stats-interval:60000}")
+    private long statsInterval;
+
+    /**
+     * Spool files handed to the executor and not yet consumed.
+     */
+    private final Set<Path> submitted = ConcurrentHashMap.newKeySet();
+
+    private Path directory;
+    private ScheduledFuture<?> poller;
+    private long nextStats;
+
+    @PostConstruct
+    void start() throws IOException {
+        directory = Files.createDirectories(Paths.get(retryDirectory));
+        nextStats = System.currentTimeMillis() + statsInterval;
+
+        poller = retryScheduler.scheduleWithFixedDelay(this::poll, Instant.now().plusMillis(pollInterval),
+                Duration.ofMillis(pollInterval));
+    }
+
+    @PreDestroy
+    void stop() {
+        // Spool files stay on disk for the next start
+        poller.cancel(false);
+    }
+
+    /**
+     * Spool the image for another upload attempt.
+     *
+     * @param messageId Pending image message.
+     * @param attempt   Number of the retry being scheduled, starting at 1.
+     * @param image     Original image content.
+     * @return false when the retries are exhausted and the upload should be failed.
+     */
+    public boolean schedule(UUID messageId, int attempt, InputStream image) throws IOException {
+        if (attempt > maxAttempts) {
+            return false;
+        }
+
+        long backoff = Math.min(initialBackoff << Math.min(attempt - 1, 20), maxBackoff);
+        long dueAt = System.currentTimeMillis() + backoff + ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+
+        String fileName = messageId + "_" + attempt + "_" + dueAt + SPOOL_SUFFIX;
+        Path partial = directory.resolve(fileName + ".part");
+        Files.copy(image, partial, StandardCopyOption.REPLACE_EXISTING);
+        // The poller only picks up complete files
+        Files.move(partial, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+
+        log.info("Image upload for message ID: {} scheduled for retry {}/{} in {}ms", messageId, attempt, maxAttempts,
+                dueAt - System.currentTimeMillis());
+        return true;
+    }
+
+    private void poll() {
+        long now = System.currentTimeMillis();
+        int pending = 0;
+
+        try {
+            submitted.removeIf(file -> !Files.exists(file));
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SPOOL_SUFFIX)) {
+                for (Path file : files) {
+                    pending++;
+                    RetryEntry entry = RetryEntry.parse(file);
+                    if (entry == null) {
+                        log.warn("Ignoring unexpected file in image upload retry directory: {}", file);
+                    } else if (entry.dueAt() <= now && submitted.add(file)) {
+                        submit(entry);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error polling image upload retries: {}", e.getMessage(), e);
+        }
+
+        if (now >= nextStats) {
+            logStats(pending);
+            nextStats = now + statsInterval;
+        }
+    }
+
+    private void submit(RetryEntry entry) {
+        try {
+            chatImageUploadService.getObject().retryImageUploadAsync(entry.file(), entry.messageId(), entry.attempt());
+        } catch (TaskRejectedException e) {
+            // Upload pool is saturated, the file stays due and is picked up by a later poll
+            submitted.remove(entry.file());
+        }
+    }
+
+    private void logStats(int pendingRetries) {
+        log.info("Chat image uploads: queued={} in-flight={} retrying={} | {}",
+                chatImageUploadExecutor.getQueueSize(),
+                chatImageUploadExecutor.getActiveCount(),
+                pendingRetries,
+                chatImageUploadService.getObject().getUploadLatency().drainSummary());
+    }
+
+    private record RetryEntry(Path file, UUID messageId, int attempt, long dueAt) {
+        static RetryEntry parse(Path file) {
+            String name = file.getFileName().toString();
+            String[] parts = name.substring(0, name.length() - SPOOL_SUFFIX.length()).split("_");
+            if (parts.length != 3) {
+                return null;
+            }
+
+            try {
+                return new RetryEntry(file, UUID.fromString(parts[0]), Integer.parseInt(parts[1]),
+                        Long.parseLong(parts[2]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
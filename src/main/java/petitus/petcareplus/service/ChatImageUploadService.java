@@ -6,21 +6,29 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import petitus.petcareplus.configuration.AsyncConfig;
 import petitus.petcareplus.dto.response.chat.ChatMessageResponse;
 import petitus.petcareplus.dto.response.chat.ImageUploadResponse;
 import petitus.petcareplus.event.ImageUploadCompletedEvent;
 import petitus.petcareplus.event.ImageUploadErrorEvent;
 import petitus.petcareplus.model.ChatMessage;
 import petitus.petcareplus.model.ChatImageMessage;
+import petitus.petcareplus.model.UploadStatus;
 import petitus.petcareplus.repository.ChatMessageRepository;
 import petitus.petcareplus.repository.ChatImageMessageRepository;
+import petitus.petcareplus.utils.LatencyHistogram;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +40,11 @@ public class ChatImageUploadService {
     private final ApplicationEventPublisher eventPublisher;
     private final CipherService cipherService;
     private final ChatMessageDecryptionUtil decryptionUtil;
+    private final ConversationService conversationService;
+    private final ChatImageProcessor chatImageProcessor;
+    private final ChatImageUploadRetryQueue chatImageUploadRetryQueue;
+
+    private final LatencyHistogram uploadLatency = new LatencyHistogram("upload");
 
     /**
      * Save pending image message (optimistic UI approach)
@@ -82,6 +95,7 @@ public class ChatImageUploadService {
             
             // Save to database
             ChatImageMessage savedMessage = chatImageMessageRepository.save(chatImageMessage);
+            conversationService.recordMessage(savedMessage);
             
             // Return response with decrypted content for immediate display
             return decryptionUtil.createDecryptedImageMessageResponse(savedMessage);
@@ -95,7 +109,7 @@ public class ChatImageUploadService {
     /**
      * Process image upload asynchronously
      */
-    @Async
+    @Async(AsyncConfig.CHAT_IMAGE_UPLOAD_EXECUTOR)
     @Transactional
     public void processImageUploadAsync(String imageDataBase64, ImageUploadResponse originalResponse, UUID messageId) {
         long startTime = System.currentTimeMillis();
@@ -108,9 +122,90 @@ public class ChatImageUploadService {
                     messageId, processingTime, e);
             handleUploadFailure(messageId, originalResponse.getSenderId(), 
                     "Unexpected error occurred while uploading image: " + e.getMessage());
+        } finally {
+            uploadLatency.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime));
+        }
+    }
+
+    /**
+     * Process an image uploaded as a file asynchronously, the file is deleted once processed
+     */
+    @Async(AsyncConfig.CHAT_IMAGE_UPLOAD_EXECUTOR)
+    @Transactional
+    public void processImageFileUploadAsync(Path imageFile, ImageUploadResponse originalResponse, UUID messageId) {
+        long startTime = System.currentTimeMillis();
+
+        try {
+            if (Files.size(imageFile) < 1024) { // Less than 1KB is suspicious
+                handleUploadFailure(messageId, originalResponse.getSenderId(), "Image file is too small or corrupted");
+                return;
+            }
+
+            uploadToStorage(() -> cloudinaryService.uploadImage(imageFile.toFile(), "chat-images"),
+                    () -> Files.newInputStream(imageFile), originalResponse, messageId, 0);
+        } catch (Exception e) {
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.error("Unexpected error during async image upload for message ID: {} after {}ms",
+                    messageId, processingTime, e);
+            handleUploadFailure(messageId, originalResponse.getSenderId(),
+                    "Unexpected error occurred while uploading image: " + e.getMessage());
+        } finally {
+            deleteQuietly(imageFile);
+            uploadLatency.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime));
         }
     }
 
+    /**
+     * Retry an upload that failed on a transient storage error, the spooled file is deleted once processed
+     */
+    @Async(AsyncConfig.CHAT_IMAGE_UPLOAD_EXECUTOR)
+    @Transactional
+    public void retryImageUploadAsync(Path spooledImage, UUID messageId, int attempt) {
+        long startTime = System.currentTimeMillis();
+        UUID senderId = null;
+
+        try {
+            Optional<ChatMessage> messageOpt = chatMessageRepository.findById(messageId);
+            if (messageOpt.isEmpty() || !(messageOpt.get() instanceof ChatImageMessage chatImageMessage)
+                    || chatImageMessage.getUploadStatus() != UploadStatus.PENDING) {
+                log.info("Dropping image upload retry for message ID: {}, message is gone or no longer pending",
+                        messageId);
+                return;
+            }
+            senderId = chatImageMessage.getSenderId();
+
+            ImageUploadResponse originalResponse = ImageUploadResponse.builder()
+                    .senderId(chatImageMessage.getSenderId())
+                    .recipientId(chatImageMessage.getRecipientId())
+                    .uploadedAt(chatImageMessage.getCreatedAt())
+                    .build();
+
+            uploadToStorage(() -> cloudinaryService.uploadImage(spooledImage.toFile(), "chat-images"),
+                    () -> Files.newInputStream(spooledImage), originalResponse, messageId, attempt);
+        } catch (Exception e) {
+            log.error("Unexpected error during image upload retry {} for message ID: {}", attempt, messageId, e);
+            if (senderId != null) {
+                handleUploadFailure(messageId, senderId,
+                        "Unexpected error occurred while uploading image: " + e.getMessage());
+            }
+        } finally {
+            deleteQuietly(spooledImage);
+            uploadLatency.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - startTime));
+        }
+    }
+
+    /**
+     * Fail an upload the upload executor had no room for
+     */
+    @Transactional
+    public void rejectImageUpload(UUID messageId, UUID senderId) {
+        handleUploadFailure(messageId, senderId, "Too many image uploads in progress, please try again");
+    }
+
+    LatencyHistogram getUploadLatency() {
+        return uploadLatency;
+    }
+
     /**
      * Perform the actual image upload and processing
      */
@@ -139,11 +234,20 @@ public class ChatImageUploadService {
             handleUploadFailure(messageId, originalResponse.getSenderId(), "Image file is too small or corrupted");
             return;
         }
-        
+
+        uploadToStorage(() -> cloudinaryService.uploadImage(imageBytes, "chat-images"),
+                () -> new ByteArrayInputStream(imageBytes), originalResponse, messageId, 0);
+    }
+
+    /**
+     * Upload to Cloudinary and update the pending message with the result, I/O failures are queued for retry
+     */
+    private void uploadToStorage(StorageUpload storageUpload, ImageSource imageSource,
+                                 ImageUploadResponse originalResponse, UUID messageId, int attempt) {
         // Upload to Cloudinary with timeout consideration
         Map<String, Object> uploadResult;
         try {
-            uploadResult = cloudinaryService.uploadImage(imageBytes, "chat-images");
+            uploadResult = storageUpload.upload();
             
             if (uploadResult == null || !uploadResult.containsKey("secure_url")) {
                 log.error("Cloudinary upload returned null or invalid result for message ID: {}", messageId);
@@ -152,6 +256,10 @@ public class ChatImageUploadService {
             }
             
         } catch (IOException e) {
+            if (scheduleRetry(imageSource, messageId, attempt + 1)) {
+                log.warn("Transient storage failure for message ID: {}: {}", messageId, e.getMessage());
+                return;
+            }
             handleUploadFailure(messageId, originalResponse.getSenderId(),
                     "Failed to upload image to cloud storage: " + e.getMessage());
             return;
@@ -173,14 +281,27 @@ public class ChatImageUploadService {
             return;
         }
         
-        updateMessageWithUploadResults(chatImageMessage, uploadResult, originalResponse, messageId);
+        updateMessageWithUploadResults(chatImageMessage, uploadResult, imageSource, originalResponse, messageId);
+    }
+
+    /**
+     * Spool the image for another attempt, false when retries are exhausted or the image cannot be spooled
+     */
+    private boolean scheduleRetry(ImageSource imageSource, UUID messageId, int attempt) {
+        try (InputStream image = imageSource.open()) {
+            return chatImageUploadRetryQueue.schedule(messageId, attempt, image);
+        } catch (IOException e) {
+            log.error("Failed to queue image upload retry for message ID: {}", messageId, e);
+            return false;
+        }
     }
 
     /**
      * Update message with upload results and notify users
      */
-    private void updateMessageWithUploadResults(ChatImageMessage chatImageMessage, Map<String, Object> uploadResult, 
-                                                ImageUploadResponse originalResponse, UUID messageId) {
+    private void updateMessageWithUploadResults(ChatImageMessage chatImageMessage, Map<String, Object> uploadResult,
+                                                ImageSource imageSource, ImageUploadResponse originalResponse,
+                                                UUID messageId) {
         try {
             // Update with actual Cloudinary data - encrypt all URLs
             String imageUrl = (String) uploadResult.get("secure_url");
@@ -196,14 +317,12 @@ public class ChatImageUploadService {
             chatImageMessage.setHeight((Integer) uploadResult.get("height"));
             chatImageMessage.setUploadStatus(petitus.petcareplus.model.UploadStatus.COMPLETED);
             
-            // Generate different sized URLs using the unencrypted publicId and encrypt them
-            String thumbnailUrl = cloudinaryService.generateOptimizedUrl(publicId, 150, 150);
-            String mediumUrl = cloudinaryService.generateOptimizedUrl(publicId, 400, 400);
-            String largeUrl = cloudinaryService.generateOptimizedUrl(publicId, 800, 800);
+            // Generate different sized URLs and encrypt them
+            ChatImageProcessor.ImageVariants variants = createVariants(publicId, imageSource, messageId);
             
-            chatImageMessage.setThumbnailUrl(cipherService.encrypt(thumbnailUrl));
-            chatImageMessage.setMediumUrl(cipherService.encrypt(mediumUrl));
-            chatImageMessage.setLargeUrl(cipherService.encrypt(largeUrl));
+            chatImageMessage.setThumbnailUrl(cipherService.encrypt(variants.thumbnailUrl()));
+            chatImageMessage.setMediumUrl(cipherService.encrypt(variants.mediumUrl()));
+            chatImageMessage.setLargeUrl(cipherService.encrypt(variants.largeUrl()));
             
             // Save updated message
             ChatImageMessage updatedMessage = chatImageMessageRepository.save(chatImageMessage);
@@ -239,6 +358,26 @@ public class ChatImageUploadService {
         }
     }
 
+    /**
+     * Produce the variants locally when enabled, otherwise (or when that fails) use Cloudinary transform URLs
+     * built from the unencrypted publicId
+     */
+    private ChatImageProcessor.ImageVariants createVariants(String publicId, ImageSource imageSource, UUID messageId) {
+        if (chatImageProcessor.isEnabled()) {
+            try (InputStream imageStream = imageSource.open()) {
+                return chatImageProcessor.process(imageStream);
+            } catch (IOException e) {
+                log.warn("Local image processing failed for message ID: {}, using remote transforms: {}",
+                        messageId, e.getMessage());
+            }
+        }
+
+        return new ChatImageProcessor.ImageVariants(
+                cloudinaryService.generateOptimizedUrl(publicId, 150, 150),
+                cloudinaryService.generateOptimizedUrl(publicId, 400, 400),
+                cloudinaryService.generateOptimizedUrl(publicId, 800, 800));
+    }
+
     /**
      * Publish image upload completed event with error handling
      */
@@ -271,4 +410,22 @@ public class ChatImageUploadService {
             log.error("Error handling upload failure for message ID: {}", messageId, e);
         }
     }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary image file {}: {}", file, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface StorageUpload {
+        Map<String, Object> upload() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ImageSource {
+        InputStream open() throws IOException;
+    }
 } 
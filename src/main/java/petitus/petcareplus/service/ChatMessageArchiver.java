@@ -0,0 +1,82 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import petitus.petcareplus.configuration.AsyncConfig;
+import petitus.petcareplus.repository.ChatMessageRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Maintains the monthly partitions of chat_messages. Every {@code interval} it creates the partitions of the next
+ * {@code premake-months} months, so new messages never fall into the default partition, and moves the months older
+ * than {@code hot-months} to chat_messages_archive. Messages still unread are taken off the conversation unread
+ * counters on the way, without being marked read, so marking as read never reaches into the archive. The archive
+ * keeps only the conversation index, history reads continue into it when the hot months run out.
+ * Runs only with {@code application.chat.archive.enabled}, which needs V20261018006 and V20261018008 applied first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.chat.archive.enabled", havingValue = "true")
+public class ChatMessageArchiver {
+    private final ChatMessageRepository chatMessageRepository;
+
+    @Qualifier(AsyncConfig.CHAT_MESSAGE_ARCHIVE_SCHEDULER)
+    private final ThreadPoolTaskScheduler archiveScheduler;
+
+    @Value("${application.chat.archive.hot-months:6}")
+    private int hotMonths;
+
+    @Value("${application.chat.archive.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${application.chat.archive.interval:21600000}")
+    private long interval;
+
+    private ScheduledFuture<?> maintenance;
+
+    @PostConstruct
+    void start() {
+        // First run right after startup, it also brings the archive up to columns added by schema updates
+        maintenance = archiveScheduler.scheduleWithFixedDelay(this::maintainPartitions, Duration.ofMillis(interval));
+    }
+
+    @PreDestroy
+    void stop() {
+        maintenance.cancel(false);
+    }
+
+    private void maintainPartitions() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+
+        try {
+            int created = chatMessageRepository.ensureMonthlyPartitions(currentMonth,
+                    currentMonth.plusMonths(premakeMonths));
+            if (created > 0) {
+                log.info("Created {} chat message partitions", created);
+            }
+        } catch (Exception e) {
+            log.error("Failed to create chat message partitions: {}", e.getMessage(), e);
+        }
+
+        try {
+            List<String> archived = chatMessageRepository.archivePartitionsBefore(currentMonth.minusMonths(hotMonths));
+            if (!archived.isEmpty()) {
+                log.info("Moved chat message partitions to the archive: {}", archived);
+            }
+        } catch (Exception e) {
+            log.error("Failed to archive chat message partitions: {}", e.getMessage(), e);
+        }
+    }
+}
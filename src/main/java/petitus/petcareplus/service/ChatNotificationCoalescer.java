@@ -0,0 +1,107 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import petitus.petcareplus.configuration.AsyncConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Write-behind for chat notifications. Messages are collapsed in memory per (recipient, sender) and flushed every
+ * {@code flush-interval} into the single live notification of that pair, so a fast conversation costs one row update
+ * per pair and interval instead of one row per message.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatNotificationCoalescer {
+    private final NotificationService notificationService;
+
+    @Qualifier(AsyncConfig.CHAT_NOTIFICATION_FLUSH_SCHEDULER)
+    private final ThreadPoolTaskScheduler flushScheduler;
+
+    @Value("${application.chat.notifications.flush-interval:1000}")
+    private long flushInterval;
+
+    @Value("${application.chat.notifications.batch-size:500}")
+    private int batchSize;
+
+    private final Map<PairKey, NotificationService.CollapsedNotification> pending = new ConcurrentHashMap<>();
+
+    private ScheduledFuture<?> flusher;
+
+    @PostConstruct
+    void start() {
+        flusher = flushScheduler.scheduleWithFixedDelay(this::flush, Instant.now().plusMillis(flushInterval),
+                Duration.ofMillis(flushInterval));
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.cancel(false);
+        // Waits for a scheduled flush in progress, then writes what it left
+        flush();
+    }
+
+    /**
+     * Count one more message from the sender, the latest message becomes the preview.
+     */
+    public void record(UUID recipientId, UUID senderId, UUID messageId, String preview) {
+        pending.merge(new PairKey(recipientId, senderId),
+                new NotificationService.CollapsedNotification(recipientId, senderId, messageId, preview, 1),
+                ChatNotificationCoalescer::combine);
+    }
+
+    private synchronized void flush() {
+        List<NotificationService.CollapsedNotification> batch = new ArrayList<>(batchSize);
+        for (PairKey key : pending.keySet()) {
+            // Messages recorded after the removal start a new entry for the next flush
+            NotificationService.CollapsedNotification update = pending.remove(key);
+            if (update != null) {
+                batch.add(update);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<NotificationService.CollapsedNotification> batch) {
+        try {
+            notificationService.mergeChatNotifications(batch);
+        } catch (Exception e) {
+            log.error("Failed to write {} chat notifications, retrying with the next flush: {}", batch.size(),
+                    e.getMessage(), e);
+            // The failed entries are older than anything recorded since
+            batch.forEach(update -> pending.merge(new PairKey(update.recipientId(), update.senderId()), update,
+                    (newer, failed) -> combine(failed, newer)));
+        }
+    }
+
+    private static NotificationService.CollapsedNotification combine(NotificationService.CollapsedNotification older,
+                                                                     NotificationService.CollapsedNotification newer) {
+        return new NotificationService.CollapsedNotification(newer.recipientId(), newer.senderId(),
+                newer.relatedId(), newer.message(), older.count() + newer.count());
+    }
+
+    private record PairKey(UUID recipientId, UUID senderId) {
+    }
+}
@@ -3,7 +3,6 @@ package petitus.petcareplus.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import petitus.petcareplus.dto.request.notification.NotificationRequest;
 import petitus.petcareplus.model.ChatMessage;
 import petitus.petcareplus.model.User;
 import petitus.petcareplus.utils.enums.Notifications;
@@ -18,14 +17,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class ChatNotificationService {
-    private final NotificationService notificationService;
+    private final ChatNotificationCoalescer chatNotificationCoalescer;
     private final FcmTokenService fcmTokenService;
-    private final FirebaseMessagingService firebaseMessagingService;
+    private final FcmDispatcher fcmDispatcher;
     private final ActiveChatService activeChatService;
     private final CipherService cipherService;
 
+    private static final int PREVIEW_MAX_LENGTH = 100;
+
     /**
-     * Create and send internal notification for new chat message
+     * Count the message into the sender's live notification of the recipient, written behind by the coalescer
      */
     public void createNotification(ChatMessage chatMessage, UUID senderId) {
         // Decrypt the message content for notification
@@ -36,16 +37,9 @@ public class ChatNotificationService {
             log.warn("Failed to decrypt message content for notification: {}", e.getMessage());
             decryptedContent = "New message"; // Fallback text
         }
-        
-        NotificationRequest notificationRequest = NotificationRequest.builder()
-                .userIdReceive(chatMessage.getRecipientId())
-                .type(Notifications.CHAT)
-                .title("New Message")
-                .message(decryptedContent)
-                .relatedId(chatMessage.getId())
-                .build();
 
-        notificationService.pushNotification(notificationRequest, senderId);
+        chatNotificationCoalescer.record(chatMessage.getRecipientId(), senderId, chatMessage.getId(),
+                preview(decryptedContent));
     }
 
     /**
@@ -81,15 +75,29 @@ public class ChatNotificationService {
                     chatMessage.getId().toString(),
                     sender.getId().toString());
 
-            for (String token : receiverTokens) {
-                firebaseMessagingService.sendNotification(token, title, body, data);
-            }
+            // Same collapse key per sender, devices replace the previous notification instead of stacking them
+            fcmDispatcher.dispatch(receiverTokens, title, preview(body), data,
+                    getCollapseKey(chatMessage.getSenderId()));
             
-            log.debug("Sent FCM notification to {} tokens for message from {} to {}", 
+            log.debug("Queued FCM notification to {} tokens for message from {} to {}", 
                     receiverTokens.size(), chatMessage.getSenderId(), chatMessage.getRecipientId());
         }
     }
 
+    /**
+     * Cut long messages, FCM rejects payloads over 4KB
+     */
+    private static String preview(String content) {
+        if (content != null && content.length() > PREVIEW_MAX_LENGTH) {
+            return content.substring(0, PREVIEW_MAX_LENGTH) + "…";
+        }
+        return content;
+    }
+
+    private static String getCollapseKey(UUID senderId) {
+        return "chat-" + senderId;
+    }
+
     /**
      * Create FCM notification data payload
      */
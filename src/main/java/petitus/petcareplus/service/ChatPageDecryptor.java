@@ -0,0 +1,95 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import petitus.petcareplus.utils.LatencyHistogram;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Decrypts chat history pages on a bounded ForkJoin pool, keeping the page order. Small pages are decrypted on the
+ * calling thread since handing them off costs more than the AES work itself.
+ */
+@Slf4j
+@Component
+public class ChatPageDecryptor {
+    @Value("${application.chat.decrypt.parallelism:4}")
+    private int parallelism;
+
+    @Value("${application.chat.decrypt.parallel-threshold:16}")
+    private int parallelThreshold;
+
+    @Value("${application.chat.decrypt.stats-interval:60000}")
+    private long statsInterval;
+
+    private final LatencyHistogram pageLatency = new LatencyHistogram("decrypt-page");
+
+    private final AtomicLong nextStats = new AtomicLong();
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void start() {
+        pool = new ForkJoinPool(parallelism);
+        nextStats.set(System.currentTimeMillis() + statsInterval);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Map every message of a page through the decrypting mapper.
+     *
+     * @param messages Page content in display order.
+     * @param mapper   Decrypting mapper, must not touch the persistence context.
+     * @return Decrypted page in the same order.
+     */
+    public <T, R> List<R> decrypt(List<T> messages, Function<T, R> mapper) {
+        long startTime = System.nanoTime();
+
+        List<R> decrypted;
+        if (messages.size() < parallelThreshold) {
+            decrypted = messages.stream().map(mapper).toList();
+        } else {
+            decrypted = decryptInParallel(messages, mapper);
+        }
+
+        pageLatency.recordSince(startTime);
+        logStatsIfDue();
+        return decrypted;
+    }
+
+    private <T, R> List<R> decryptInParallel(List<T> messages, Function<T, R> mapper) {
+        try {
+            // A parallel stream started from inside the pool runs on the pool instead of the common pool
+            return pool.submit(() -> messages.parallelStream().map(mapper).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while decrypting chat page", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to decrypt chat page", e.getCause());
+        }
+    }
+
+    private void logStatsIfDue() {
+        long due = nextStats.get();
+        long now = System.currentTimeMillis();
+        if (now >= due && nextStats.compareAndSet(due, now + statsInterval)) {
+            log.info("Chat page decryption: {}", pageLatency.drainSummary());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package petitus.petcareplus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import petitus.petcareplus.configuration.AsyncConfig;
+import petitus.petcareplus.dto.request.chat.ChatMessageRequest;
+import petitus.petcareplus.model.ChatMessage;
+import petitus.petcareplus.model.User;
+import petitus.petcareplus.utils.LatencyHistogram;
+import petitus.petcareplus.utils.StripedTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Staged send path for WebSocket chat messages.
+ * <ol>
+ *     <li>intake: the inbound STOMP thread only validates and enqueues into a bounded queue, a full queue rejects
+ *     the message back to the sender instead of stalling the clientInboundChannel;</li>
+ *     <li>persist: a single writer drains the queue and group-commits up to {@code batch-size} messages per
+ *     transaction;</li>
+ *     <li>fan-out: broker delivery and auto read receipts run on single-threaded stripes keyed by conversation, so
+ *     messages of one conversation are delivered in commit order;</li>
+ *     <li>notify: internal notifications and FCM pushes run on their own bounded pool.</li>
+ * </ol>
+ * The executors are declared in {@link AsyncConfig}. Downstream executors block the writer when their queues are
+ * full, which backs up into the intake queue.
+ * Per-stage latency histograms are logged every {@code stats-interval}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSendPipeline {
+    private final ChatService chatService;
+    private final WebSocketService webSocketService;
+    private final ChatNotificationService chatNotificationService;
+    private final UserService userService;
+
+    @Qualifier(AsyncConfig.CHAT_SEND_WRITER_EXECUTOR)
+    private final ThreadPoolTaskExecutor writerExecutor;
+
+    @Qualifier(AsyncConfig.CHAT_SEND_FANOUT_EXECUTOR)
+    private final StripedTaskExecutor fanoutExecutor;
+
+    @Qualifier(AsyncConfig.CHAT_SEND_NOTIFICATION_EXECUTOR)
+    private final ThreadPoolTaskExecutor notificationExecutor;
+
+    @Value("${application.chat.send.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${application.chat.send.batch-size:100}")
+    private int batchSize;
+
+    @Value("${application.chat.send.stats-interval:60000}")
+    private long statsInterval;
+
+    private final LatencyHistogram queueLatency = new LatencyHistogram("queue");
+    private final LatencyHistogram persistLatency = new LatencyHistogram("persist");
+    private final LatencyHistogram fanoutLatency = new LatencyHistogram("fanout");
+    private final LatencyHistogram notifyLatency = new LatencyHistogram("notify");
+
+    private BlockingQueue<PendingMessage> intake;
+    private Future<?> writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        intake = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = writerExecutor.submit(this::runWriter);
+    }
+
+    /**
+     * Drain the intake queue, the fan-out and notification executors are shut down after this returns.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        try {
+            writer.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Chat send writer did not drain the queue: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Accept a message from a WebSocket client, returns once it is queued for persistence.
+     */
+    public void submit(ChatMessageRequest request) {
+        if (request.getRecipientId() == null) {
+            webSocketService.sendMessageError(request.getSenderId(), "Recipient ID is required");
+            return;
+        }
+        if (request.getContent() == null || request.getContent().isBlank()) {
+            webSocketService.sendMessageError(request.getSenderId(), "Message content is required");
+            return;
+        }
+
+        if (!running || !intake.offer(new PendingMessage(request, System.nanoTime()))) {
+            log.warn("Chat send queue is full, rejecting message from {}", request.getSenderId());
+            webSocketService.sendMessageError(request.getSenderId(), "Server is busy, please try again");
+        }
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        long nextStats = System.currentTimeMillis() + statsInterval;
+
+        while (running || !intake.isEmpty()) {
+            try {
+                PendingMessage first = intake.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    intake.drainTo(batch, batchSize - 1);
+                    persist(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Unexpected error in chat send writer: {}", e.getMessage(), e);
+                batch.clear();
+            }
+
+            if (System.currentTimeMillis() >= nextStats) {
+                logStats();
+                nextStats = System.currentTimeMillis() + statsInterval;
+            }
+        }
+    }
+
+    private void persist(List<PendingMessage> batch) {
+        long startTime = System.nanoTime();
+        batch.forEach(pending -> queueLatency.record(startTime - pending.acceptedAt()));
+
+        List<ChatMessage> savedMessages;
+        try {
+            savedMessages = chatService.saveMessages(batch.stream().map(PendingMessage::request).toList());
+        } catch (Exception e) {
+            // One bad message must not take the rest of the batch down with it
+            log.warn("Failed to persist batch of {} chat messages, retrying one by one: {}", batch.size(), e.getMessage());
+            savedMessages = new ArrayList<>(batch.size());
+            for (PendingMessage pending : batch) {
+                try {
+                    savedMessages.addAll(chatService.saveMessages(List.of(pending.request())));
+                } catch (Exception messageError) {
+                    log.error("Failed to persist chat message from {}: {}", pending.request().getSenderId(),
+                            messageError.getMessage(), messageError);
+                    webSocketService.sendMessageError(pending.request().getSenderId(), "Failed to send message");
+                }
+            }
+        }
+        persistLatency.recordSince(startTime);
+
+        savedMessages.forEach(this::dispatch);
+    }
+
+    private void dispatch(ChatMessage chatMessage) {
+        long savedAt = System.nanoTime();
+
+        int conversation = chatMessage.getSenderId().hashCode() ^ chatMessage.getRecipientId().hashCode();
+        fanoutExecutor.execute(conversation, () -> {
+            try {
+                webSocketService.sendMessage(chatService.createDecryptedResponse(chatMessage));
+            } catch (Exception e) {
+                log.error("Error delivering chat message {}: {}", chatMessage.getId(), e.getMessage(), e);
+            }
+            fanoutLatency.recordSince(savedAt);
+        });
+
+        notificationExecutor.execute(() -> {
+            try {
+                User sender = userService.findById(chatMessage.getSenderId());
+                chatNotificationService.createNotification(chatMessage, sender.getId());
+                chatNotificationService.sendFcmNotification(chatMessage, sender);
+            } catch (Exception e) {
+                log.error("Error notifying chat message {}: {}", chatMessage.getId(), e.getMessage(), e);
+            }
+            notifyLatency.recordSince(savedAt);
+        });
+    }
+
+    private void logStats() {
+        log.info("Chat send pipeline: pending={} | {} | {} | {} | {}", intake.size(),
+                queueLatency.drainSummary(),
+                persistLatency.drainSummary(),
+                fanoutLatency.drainSummary(),
+                notifyLatency.drainSummary());
+    }
+
+    private record PendingMessage(ChatMessageRequest request, long acceptedAt) {
+    }
+}
@@ -2,23 +2,35 @@ package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import petitus.petcareplus.dto.request.chat.ChatMessageRequest;
 import petitus.petcareplus.dto.response.chat.ChatMessageResponse;
 import petitus.petcareplus.dto.response.chat.ConversationResponse;
 import petitus.petcareplus.dto.response.chat.ImageUploadResponse;
+import petitus.petcareplus.event.ImageUploadPendingEvent;
+import petitus.petcareplus.exceptions.BadRequestException;
 import petitus.petcareplus.model.ChatImageMessage;
 import petitus.petcareplus.model.ChatMessage;
+import petitus.petcareplus.model.UploadStatus;
 import petitus.petcareplus.model.User;
 import petitus.petcareplus.repository.ChatMessageRepository;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,12 +38,23 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class ChatService {
+    private static final long MAX_IMAGE_SIZE_MB = 5;
+
     private final ChatMessageRepository chatMessageRepository;
     private final UserService userService;
     private final ChatNotificationService chatNotificationService;
     private final ChatImageUploadService chatImageUploadService;
     private final ConversationService conversationService;
     private final CipherService cipherService;
+    private final ChatPageDecryptor chatPageDecryptor;
+    private final MessageSourceService messageSourceService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Continue history reads into chat_messages_archive, which only exists once the partitioning migrations ran.
+     */
+    @Value("${application.chat.archive.enabled:false}")
+    private boolean archiveEnabled;
 
     @Transactional
     public ChatMessageResponse sendMessage(ChatMessageRequest request) {
@@ -50,6 +73,8 @@ public class ChatService {
 
         ChatMessage chatMessage = createAndSaveChatMessage(request, senderId);
 
+        conversationService.recordMessage(chatMessage);
+
         chatNotificationService.createNotification(chatMessage, senderId);
 
         chatNotificationService.sendFcmNotification(chatMessage, sender);
@@ -57,6 +82,26 @@ public class ChatService {
         return createDecryptedResponse(chatMessage);
     }
 
+    /**
+     * Persist a batch of messages in one transaction, used by {@link ChatSendPipeline} to group-commit sends.
+     * Notifications are left to the caller.
+     */
+    @Transactional
+    public List<ChatMessage> saveMessages(List<ChatMessageRequest> requests) {
+        List<ChatMessage> chatMessages = requests.stream()
+                .map(request -> ChatMessage.builder()
+                        .senderId(request.getSenderId())
+                        .recipientId(request.getRecipientId())
+                        .content(cipherService.encrypt(request.getContent()))
+                        .isRead(false)
+                        .build())
+                .toList();
+
+        List<ChatMessage> savedMessages = chatMessageRepository.saveAll(chatMessages);
+        conversationService.recordMessages(savedMessages);
+        return savedMessages;
+    }
+
     private ChatMessage createAndSaveChatMessage(ChatMessageRequest request, UUID senderId) {
         // Encrypt the message content before saving
         String encryptedContent = cipherService.encrypt(request.getContent());
@@ -74,7 +119,7 @@ public class ChatService {
     /**
      * Create a ChatMessageResponse with decrypted content
      */
-    private ChatMessageResponse createDecryptedResponse(ChatMessage message) {
+    ChatMessageResponse createDecryptedResponse(ChatMessage message) {
         // Decrypt the content before creating the response
         String decryptedContent;
         try {
@@ -186,8 +231,29 @@ public class ChatService {
 
     public Page<ChatMessageResponse> getConversation(UUID otherUserId, Pageable pageable) {
         UUID currentUserId = userService.getCurrentUserId();
-        Page<ChatMessage> a = chatMessageRepository.findConversationBetweenUsers(currentUserId, otherUserId, pageable);
-                return a.map(this::createDecryptedResponse);
+        // The queries order by created_at themselves, a client sort would name entity properties
+        Page<ChatMessage> a = chatMessageRepository.findConversationBetweenUsers(currentUserId, otherUserId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+
+        // Pages within the hot months stay there, a short one continues into the archived months
+        List<ChatMessage> messages = a.getContent();
+        long total = a.getTotalElements();
+        if (archiveEnabled) {
+            if (messages.size() < pageable.getPageSize()) {
+                long archivedOffset = Math.max(0, pageable.getOffset() - a.getTotalElements());
+                List<ChatMessage> archived = chatMessageRepository.findArchivedConversationPage(
+                    currentUserId, otherUserId, archivedOffset, pageable.getPageSize() - messages.size()
+                );
+                if (!archived.isEmpty()) {
+                    messages = new ArrayList<>(messages);
+                    messages.addAll(archived);
+                }
+            }
+            total += chatMessageRepository.countArchivedConversation(currentUserId, otherUserId);
+        }
+
+        List<ChatMessageResponse> responses = chatPageDecryptor.decrypt(messages, this::createDecryptedResponse);
+        return new PageImpl<>(responses, pageable, total);
     }
 
     public List<ChatMessageResponse> getConversationWithKeyset(UUID otherUserId, LocalDateTime lastMessageTime, int limit) {
@@ -196,22 +262,34 @@ public class ChatService {
         // Create a custom pageable for keyset pagination
         PageRequest pageRequest = PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdAt"));
         
-        Page<ChatMessage> messagesPage;
+        List<ChatMessage> messages;
         if (lastMessageTime != null) {
             // Get messages older than lastMessageTime
-            messagesPage = chatMessageRepository.findConversationBetweenUsersOlderThan(
+            messages = chatMessageRepository.findConversationBetweenUsersOlderThan(
                 currentUserId, otherUserId, lastMessageTime, pageRequest
             );
         } else {
             // Get the most recent messages
-            messagesPage = chatMessageRepository.findConversationBetweenUsers(
+            messages = chatMessageRepository.findRecentConversationBetweenUsers(
                 currentUserId, otherUserId, pageRequest
             );
         }
+
+        // A short page from the hot months continues into the archived ones
+        if (archiveEnabled && messages.size() < limit) {
+            LocalDateTime archivedBefore = messages.isEmpty()
+                    ? (lastMessageTime != null ? lastMessageTime : LocalDateTime.now())
+                    : messages.get(messages.size() - 1).getCreatedAt();
+            List<ChatMessage> archived = chatMessageRepository.findArchivedConversationOlderThan(
+                currentUserId, otherUserId, archivedBefore, limit - messages.size()
+            );
+            if (!archived.isEmpty()) {
+                messages = new ArrayList<>(messages);
+                messages.addAll(archived);
+            }
+        }
         
-        return messagesPage.getContent().stream()
-                .map(this::createDecryptedResponse)
-                .toList();
+        return chatPageDecryptor.decrypt(messages, this::createDecryptedResponse);
     }
 
     @Transactional
@@ -223,7 +301,7 @@ public class ChatService {
 
     public long getUnreadMessageCount() {
         UUID currentUserId = userService.getCurrentUserId();
-        return chatMessageRepository.countUnreadMessages(currentUserId);
+        return conversationService.getUnreadMessageCount(currentUserId);
     }
 
     /**
@@ -253,6 +331,84 @@ public class ChatService {
     }
 
     public void processImageUploadAsync(String imageDataBase64, ImageUploadResponse originalResponse, UUID messageId) {
-        chatImageUploadService.processImageUploadAsync(imageDataBase64, originalResponse, messageId);
+        try {
+            chatImageUploadService.processImageUploadAsync(imageDataBase64, originalResponse, messageId);
+        } catch (TaskRejectedException e) {
+            log.warn("Image upload queue is full, rejecting upload for message ID: {}", messageId);
+            chatImageUploadService.rejectImageUpload(messageId, originalResponse.getSenderId());
+        }
+    }
+
+    /**
+     * Send an image uploaded as multipart file. The file is moved to a temporary file (never read into memory),
+     * the pending message is saved and pushed to both users, and the upload to storage continues asynchronously.
+     * Not transactional on purpose: the pending message must be committed before the async upload looks it up.
+     */
+    public ChatMessageResponse sendImageMessage(MultipartFile file, UUID recipientId, String caption) {
+        UUID senderId = userService.getCurrentUserId();
+
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException(messageSourceService.get("chat_image_required"));
+        }
+        if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+            throw new BadRequestException(messageSourceService.get("chat_image_invalid_type"));
+        }
+        if (file.getSize() > MAX_IMAGE_SIZE_MB * 1024 * 1024) {
+            throw new BadRequestException(messageSourceService.get("chat_image_too_large",
+                    new Object[]{MAX_IMAGE_SIZE_MB}));
+        }
+
+        Path imageFile;
+        try {
+            imageFile = Files.createTempFile("chat-image-", ".upload");
+            file.transferTo(imageFile);
+        } catch (IOException e) {
+            log.error("Failed to store uploaded image from user {}", senderId, e);
+            throw new IllegalStateException("Failed to store uploaded image", e);
+        }
+
+        ImageUploadResponse pendingResponse = ImageUploadResponse.builder()
+                .senderId(senderId)
+                .recipientId(recipientId)
+                .imageUrl("pending")
+                .publicId("pending")
+                .imageName(file.getOriginalFilename() != null ? file.getOriginalFilename() : "image")
+                .mimeType(file.getContentType())
+                .caption(caption)
+                .fileSize(file.getSize())
+                .width(0)
+                .height(0)
+                .uploadedAt(LocalDateTime.now())
+                .isRead(false)
+                .uploadStatus(UploadStatus.PENDING)
+                .build();
+
+        ChatMessageResponse savedMessage;
+        try {
+            savedMessage = chatImageUploadService.savePendingImageMessage(pendingResponse, senderId);
+        } catch (RuntimeException e) {
+            deleteQuietly(imageFile);
+            throw e;
+        }
+        pendingResponse.setId(savedMessage.getId());
+
+        eventPublisher.publishEvent(new ImageUploadPendingEvent(pendingResponse));
+        try {
+            chatImageUploadService.processImageFileUploadAsync(imageFile, pendingResponse, savedMessage.getId());
+        } catch (TaskRejectedException e) {
+            log.warn("Image upload queue is full, rejecting upload for message ID: {}", savedMessage.getId());
+            deleteQuietly(imageFile);
+            chatImageUploadService.rejectImageUpload(savedMessage.getId(), senderId);
+        }
+
+        return savedMessage;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary file {}: {}", file, e.getMessage());
+        }
     }
 }
@@ -1,14 +1,20 @@
 package petitus.petcareplus.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import petitus.petcareplus.exceptions.CipherException;
+import petitus.petcareplus.utils.AESCipher;
 import petitus.petcareplus.utils.KeyUtil;
 
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -16,8 +22,27 @@ public class CipherService {
     @Value("${application.security.jwt.secret-key}")
     private String appSecret;
 
+    private static final String KEY_CONTEXT = "petcareplus:aes-gcm:v2";
+
     private final AESCipherService aesCipherService;
 
+    /**
+     * AES-GCM key for everything encrypted from now on.
+     */
+    private SecretKeySpec key;
+
+    /**
+     * Key of the ECB cipher texts written before the GCM envelope, derived the way they were encrypted.
+     */
+    private SecretKeySpec legacyKey;
+
+    @PostConstruct
+    public void init() throws NoSuchAlgorithmException {
+        byte[] normalizedKey = KeyUtil.normalizeKey(appSecret);
+        key = AESCipher.deriveKey(normalizedKey, KEY_CONTEXT);
+        legacyKey = AESCipher.deriveKey(Arrays.toString(normalizedKey));
+    }
+
     /**
      * Encrypt plain text with secret key.
      *
@@ -36,7 +61,7 @@ public class CipherService {
     }
 
     public String encryptForURL(String plainText) {
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(encrypt(plainText, appSecret).getBytes());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(encrypt(plainText).getBytes());
     }
 
     /**
@@ -47,7 +72,11 @@ public class CipherService {
      * @throws RuntimeException Encrypting exception
      */
     public String encrypt(String plainText) {
-        return encrypt(plainText, appSecret);
+        try {
+            return aesCipherService.encrypt(plainText, key);
+        } catch (Exception e) {
+            throw new CipherException(e);
+        }
     }
 
     /**
@@ -79,6 +108,32 @@ public class CipherService {
      * @throws RuntimeException Decrypting exception
      */
     public String decrypt(String encryptedText) {
-        return decrypt(encryptedText,  Arrays.toString(KeyUtil.normalizeKey(appSecret)));
+        try {
+            return aesCipherService.decrypt(encryptedText, key, legacyKey);
+        } catch (Exception e) {
+            throw new CipherException(e);
+        }
+    }
+
+    /**
+     * Decrypt a page of cipher texts with app secret, keeping their order.
+     *
+     * @param encryptedTexts List of String
+     * @return List of String, null for entries that are null or cannot be decrypted
+     */
+    public List<String> decryptAll(List<String> encryptedTexts) {
+        List<String> decryptedTexts = new ArrayList<>(encryptedTexts.size());
+        for (String encryptedText : encryptedTexts) {
+            String decryptedText = null;
+            if (encryptedText != null) {
+                try {
+                    decryptedText = aesCipherService.decrypt(encryptedText, key, legacyKey);
+                } catch (Exception ignored) {
+                    // Left null, callers show their own placeholder
+                }
+            }
+            decryptedTexts.add(decryptedText);
+        }
+        return decryptedTexts;
     }
 }
\ No newline at end of file
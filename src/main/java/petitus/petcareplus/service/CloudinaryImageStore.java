@@ -0,0 +1,29 @@
+package petitus.petcareplus.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Stores variants as plain Cloudinary uploads, served as is without on-the-fly transformations.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.chat.images.store", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStore implements ImageStore {
+    private static final String FOLDER = "chat-images/variants";
+
+    private final CloudinaryService cloudinaryService;
+
+    @Override
+    public String store(String name, byte[] content, String contentType) throws IOException {
+        Map<String, Object> result = cloudinaryService.uploadImage(content, FOLDER);
+        if (result == null || !result.containsKey("secure_url")) {
+            throw new IOException("Cloudinary upload returned no URL for " + name);
+        }
+        return (String) result.get("secure_url");
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
@@ -77,6 +78,27 @@ public class CloudinaryService {
         }
     }
 
+    /**
+     * Upload image to Cloudinary from a file, streamed from disk instead of loaded on heap
+     */
+    public Map<String, Object> uploadImage(File imageFile, String folder) throws IOException {
+        try {
+            String publicId = generatePublicId(folder);
+
+            Map<String, Object> uploadParams = ObjectUtils.asMap(
+                    "public_id", publicId,
+                    "folder", folder,
+                    "resource_type", "image"
+            );
+
+            return cloudinary.uploader().upload(imageFile, uploadParams);
+
+        } catch (IOException e) {
+            log.error("Error uploading image to Cloudinary: {}", e.getMessage());
+            throw new IOException("Failed to upload image to Cloudinary", e);
+        }
+    }
+
     /**
      * Delete image from Cloudinary
      */
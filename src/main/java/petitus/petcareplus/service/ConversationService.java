@@ -2,25 +2,30 @@ package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import petitus.petcareplus.dto.response.chat.ConversationResponse;
 import petitus.petcareplus.model.ChatMessage;
+import petitus.petcareplus.model.Conversation;
 import petitus.petcareplus.model.User;
-import petitus.petcareplus.repository.ChatMessageRepository;
+import petitus.petcareplus.repository.ConversationRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ConversationService {
-    private final ChatMessageRepository chatMessageRepository;
+    private final ConversationRepository conversationRepository;
     private final UserService userService;
     private final CipherService cipherService;
 
@@ -28,12 +33,8 @@ public class ConversationService {
      * Get all conversations for a user with pagination
      */
     public List<ConversationResponse> getAllConversations(UUID currentUserId, int limit) {
-        List<Object[]> conversationResults = chatMessageRepository.findAllConversationUsersWithTimes(
-                currentUserId,
-                limit);
-
-        List<UUID> userIds = extractUserIds(conversationResults);
-        return buildConversationResponses(currentUserId, userIds);
+        List<Conversation> conversations = conversationRepository.findInbox(currentUserId, PageRequest.of(0, limit));
+        return buildConversationResponses(conversations);
     }
 
     /**
@@ -41,13 +42,50 @@ public class ConversationService {
      */
     public List<ConversationResponse> getAllConversationsWithKeyset(UUID currentUserId, 
             LocalDateTime lastMessageTime, int limit) {
-        List<Object[]> conversationResults = chatMessageRepository.findAllConversationUsersWithKeyset(
+        List<Conversation> conversations = conversationRepository.findInboxOlderThan(
                 currentUserId,
                 lastMessageTime,
-                limit);
+                PageRequest.of(0, limit));
+        return buildConversationResponses(conversations);
+    }
+
+    /**
+     * Move both sides of the conversation to the saved message, must run in the transaction that saved it.
+     */
+    @Transactional
+    public void recordMessage(ChatMessage message) {
+        recordMessages(List.of(message));
+    }
+
+    /**
+     * Move the conversations touched by a batch of saved messages (in send order) to their latest message.
+     * Each (user, partner) row is written once and rows are written in key order, so concurrent writers
+     * always lock them in the same order and cannot deadlock.
+     */
+    @Transactional
+    public void recordMessages(List<ChatMessage> messages) {
+        Map<String, ConversationUpdate> updates = new TreeMap<>();
+        for (ChatMessage message : messages) {
+            UUID senderId = message.getSenderId();
+            UUID recipientId = message.getRecipientId();
+            updates.computeIfAbsent(senderId + ":" + recipientId, key -> new ConversationUpdate(senderId, recipientId))
+                    .apply(message, 0);
+            updates.computeIfAbsent(recipientId + ":" + senderId, key -> new ConversationUpdate(recipientId, senderId))
+                    .apply(message, 1);
+        }
 
-        List<UUID> userIds = extractUserIds(conversationResults);
-        return buildConversationResponses(currentUserId, userIds);
+        updates.values().forEach(update -> conversationRepository.upsertLastMessage(
+                update.userId,
+                update.partnerId,
+                update.lastMessageId,
+                update.unreadIncrement));
+    }
+
+    /**
+     * Total unread messages of a user, summed over the conversation counters
+     */
+    public long getUnreadMessageCount(UUID userId) {
+        return conversationRepository.sumUnreadCount(userId);
     }
 
     /**
@@ -56,8 +94,10 @@ public class ConversationService {
      */
     public List<String> getConversationPartnerIds(UUID userId) {
         try {
-            // Use optimized query that directly returns user IDs (no timestamps or extra data)
-            return chatMessageRepository.findConversationPartnerIds(userId);
+            // Read from the maintained conversations table instead of scanning the message history
+            return conversationRepository.findPartnerIdsByUserId(userId).stream()
+                    .map(UUID::toString)
+                    .toList();
         } catch (Exception e) {
             log.error("Error getting conversation partner IDs for user {}: {}", userId, e.getMessage(), e);
             return new ArrayList<>();
@@ -65,46 +105,36 @@ public class ConversationService {
     }
 
     /**
-     * Extract user IDs from conversation query results
+     * Build conversation responses from inbox rows
      */
-    private List<UUID> extractUserIds(List<Object[]> results) {
-        return results.stream()
-                .map(result -> UUID.fromString(result[0].toString()))
-                .toList();
-    }
-
-    /**
-     * Build conversation responses from user IDs
-     */
-    private List<ConversationResponse> buildConversationResponses(UUID currentUserId, List<UUID> userIds) {
-        if (userIds.isEmpty()) {
+    private List<ConversationResponse> buildConversationResponses(List<Conversation> conversations) {
+        if (conversations.isEmpty()) {
             return new ArrayList<>();
         }
 
+        List<UUID> userIds = conversations.stream()
+                .map(Conversation::getPartnerId)
+                .toList();
         Map<UUID, User> usersMap = userService.findAllByIds(userIds).stream()
                 .collect(Collectors.toMap(User::getId, user -> user));
 
-        return userIds.stream()
-                .map(userId -> {
+        // Decrypt the whole page in one pass before displaying
+        List<String> lastMessages = cipherService.decryptAll(conversations.stream()
+                .map(Conversation::getLastMessageContent)
+                .toList());
+
+        return IntStream.range(0, conversations.size())
+                .mapToObj(index -> {
+                    Conversation conversation = conversations.get(index);
+                    UUID userId = conversation.getPartnerId();
+
                     User user = usersMap.get(userId);
                     if (user == null) {
                         log.warn("User with ID {} not found", userId);
                         return null;
                     }
 
-                    ChatMessage lastMessage = chatMessageRepository.findLatestMessageBetweenUsers(
-                            currentUserId,
-                            userId);
-
-                    if (lastMessage == null) {
-                        log.warn("No messages found between users {} and {}", currentUserId, userId);
-                        return null;
-                    }
-
-                    long unreadCount = 0;
-                    if (lastMessage.getRecipientId().equals(currentUserId) && Boolean.TRUE.equals(!lastMessage.getIsRead())) {
-                        unreadCount = chatMessageRepository.countUnreadMessages(currentUserId);
-                    }
+                    long unreadCount = conversation.getUnreadCount();
 
                     // Get avatarUrl safely handling null profile
                     String avatarUrl = null;
@@ -112,23 +142,19 @@ public class ConversationService {
                         avatarUrl = user.getProfile().getAvatarUrl();
                     }
 
-                    // Format last message based on type
-                    String displayMessage;
-                    try {
-                        // Decrypt the content before displaying
-                        displayMessage = cipherService.decrypt(lastMessage.getContent());
-                    } catch (Exception e) {
-                        log.warn("Failed to decrypt last message content for conversation with user {}: {}", userId, e.getMessage());
+                    String displayMessage = lastMessages.get(index);
+                    if (displayMessage == null) {
+                        log.warn("Failed to decrypt last message content for conversation with user {}", userId);
                         displayMessage = "[Encrypted message]";
                     }
-                    
+
                     return ConversationResponse.builder()
                             .userId(userId)
                             .userName(user.getFullName())
                             .userAvatarUrl(avatarUrl)
                             .lastMessage(displayMessage)
-                            .lastMessageTime(lastMessage.getCreatedAt())
-                            .lastMessageSenderId(lastMessage.getSenderId())
+                            .lastMessageTime(conversation.getLastMessageAt())
+                            .lastMessageSenderId(conversation.getLastSenderId())
                             .hasUnreadMessages(unreadCount > 0)
                             .unreadCount(unreadCount)
                             .build();
@@ -136,4 +162,21 @@ public class ConversationService {
                 .filter(Objects::nonNull)
                 .toList();
     }
+
+    private static final class ConversationUpdate {
+        private final UUID userId;
+        private final UUID partnerId;
+        private UUID lastMessageId;
+        private long unreadIncrement;
+
+        private ConversationUpdate(UUID userId, UUID partnerId) {
+            this.userId = userId;
+            this.partnerId = partnerId;
+        }
+
+        private void apply(ChatMessage message, long unread) {
+            lastMessageId = message.getId();
+            unreadIncrement += unread;
+        }
+    }
 } 
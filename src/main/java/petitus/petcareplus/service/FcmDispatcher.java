@@ -0,0 +1,238 @@
+package petitus.petcareplus.service;
+
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.Notification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import petitus.petcareplus.utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous FCM delivery. Pushes are queued without blocking the caller, sender threads drain the queue and send
+ * the messages of several pushes together through {@link FcmSender#sendEach} batches of at most 500. Tokens FCM
+ * answers with UNREGISTERED, or INVALID_ARGUMENT naming the registration token, are deleted, so dead devices stop
+ * costing a call per message. Any other INVALID_ARGUMENT is about the message and keeps the token.
+ * Sent, failed, pruned and dropped counts and the batch latency are logged every {@code stats-interval}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FcmDispatcher {
+    private static final int MAX_BATCH_SIZE = 500; // FCM limit per sendEach call
+
+    // "The registration token is not a valid FCM registration token"
+    private static final String REGISTRATION_TOKEN_ERROR = "registration token";
+
+    private final FcmSender fcmSender;
+    private final FcmTokenService fcmTokenService;
+
+    @Value("${application.fcm.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${application.fcm.send-threads:2}")
+    private int sendThreads;
+
+    @Value("${application.fcm.stats-interval:60000}")
+    private long statsInterval;
+
+    private final LatencyHistogram batchLatency = new LatencyHistogram("fcm-batch");
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private final AtomicLong nextStats = new AtomicLong();
+
+    private BlockingQueue<Push> intake;
+    private List<Thread> senders;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        intake = new ArrayBlockingQueue<>(queueCapacity);
+        nextStats.set(System.currentTimeMillis() + statsInterval);
+
+        running = true;
+        senders = new ArrayList<>(sendThreads);
+        for (int i = 0; i < sendThreads; i++) {
+            Thread sender = new Thread(this::runSender, "fcm-sender-" + (i + 1));
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread sender : senders) {
+            sender.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queue a push to every given device, returns immediately.
+     */
+    public void dispatch(List<String> tokens, String title, String body, Map<String, String> data) {
+        dispatch(tokens, title, body, data, null);
+    }
+
+    /**
+     * Queue a push to every given device, returns immediately. Pushes sharing a collapse key replace each other on
+     * the device (Android tag, APNs collapse id) and while undelivered.
+     */
+    public void dispatch(List<String> tokens, String title, String body, Map<String, String> data,
+                         String collapseKey) {
+        Notification notification = Notification.builder()
+                .setTitle(title)
+                .setBody(body)
+                .build();
+
+        for (String token : tokens) {
+            Message.Builder message = Message.builder()
+                    .setToken(token)
+                    .setNotification(notification);
+            if (data != null) {
+                message.putAllData(data);
+            }
+            if (collapseKey != null) {
+                message.setAndroidConfig(AndroidConfig.builder()
+                                .setCollapseKey(collapseKey)
+                                .setNotification(AndroidNotification.builder().setTag(collapseKey).build())
+                                .build())
+                        .setApnsConfig(ApnsConfig.builder()
+                                .putHeader("apns-collapse-id", collapseKey)
+                                .setAps(Aps.builder().setThreadId(collapseKey).build())
+                                .build());
+            }
+
+            if (!running || !intake.offer(new Push(token, message.build()))) {
+                dropped.increment();
+                log.warn("FCM queue is full, dropping push to token: {}", token);
+            }
+        }
+    }
+
+    /**
+     * Counters since startup, the queue depth is the current one.
+     */
+    public Stats getStats() {
+        return new Stats(sent.sum(), failed.sum(), pruned.sum(), dropped.sum(), intake.size());
+    }
+
+    private void runSender() {
+        List<Push> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        while (running || !intake.isEmpty()) {
+            try {
+                Push first = intake.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    intake.drainTo(batch, MAX_BATCH_SIZE - 1);
+                    send(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Unexpected error in FCM sender: {}", e.getMessage(), e);
+                batch.clear();
+            }
+
+            logStatsIfDue();
+        }
+    }
+
+    private void send(List<Push> batch) {
+        long startTime = System.nanoTime();
+
+        List<FcmSender.SendResult> results;
+        try {
+            results = fcmSender.sendEach(batch.stream().map(Push::message).toList());
+        } catch (Exception e) {
+            failed.add(batch.size());
+            log.error("Failed to send batch of {} FCM messages: {}", batch.size(), e.getMessage(), e);
+            return;
+        } finally {
+            batchLatency.recordSince(startTime);
+        }
+
+        Set<String> deadTokens = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            FcmSender.SendResult result = results.get(i);
+            if (result.successful()) {
+                sent.increment();
+                continue;
+            }
+
+            failed.increment();
+            if (isDeadToken(result)) {
+                deadTokens.add(batch.get(i).token());
+            } else {
+                log.warn("Failed to send FCM message: {} {}", result.errorCode(), result.error());
+            }
+        }
+
+        if (!deadTokens.isEmpty()) {
+            pruneTokens(deadTokens);
+        }
+    }
+
+    private static boolean isDeadToken(FcmSender.SendResult result) {
+        if (result.errorCode() == MessagingErrorCode.UNREGISTERED) {
+            return true;
+        }
+        // Also answered for an oversized or malformed payload, which says nothing about the device
+        return result.errorCode() == MessagingErrorCode.INVALID_ARGUMENT
+                && result.error() != null
+                && result.error().toLowerCase(Locale.ROOT).contains(REGISTRATION_TOKEN_ERROR);
+    }
+
+    private void pruneTokens(Set<String> deadTokens) {
+        try {
+            int deleted = fcmTokenService.deleteTokens(deadTokens);
+            pruned.add(deleted);
+            log.info("Removed {} unregistered FCM tokens", deleted);
+        } catch (Exception e) {
+            log.error("Failed to remove {} unregistered FCM tokens: {}", deadTokens.size(), e.getMessage(), e);
+        }
+    }
+
+    private void logStatsIfDue() {
+        long due = nextStats.get();
+        long now = System.currentTimeMillis();
+        if (now >= due && nextStats.compareAndSet(due, now + statsInterval)) {
+            Stats stats = getStats();
+            log.info("FCM dispatcher: pending={} sent={} failed={} pruned={} dropped={} | {}", stats.pending(),
+                    stats.sent(), stats.failed(), stats.pruned(), stats.dropped(), batchLatency.drainSummary());
+        }
+    }
+
+    public record Stats(long sent, long failed, long pruned, long dropped, int pending) {
+    }
+
+    private record Push(String token, Message message) {
+    }
+}
@@ -0,0 +1,25 @@
+package petitus.petcareplus.service;
+
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+
+import java.util.List;
+
+/**
+ * Transport used by {@link FcmDispatcher}, backed by {@link FirebaseMessagingService} and replaceable by a local
+ * fake to measure the dispatcher without reaching FCM.
+ */
+public interface FcmSender {
+    /**
+     * Send up to 500 messages in one call.
+     *
+     * @return One result per message, in the same order.
+     * @throws FirebaseMessagingException when the whole batch failed.
+     */
+    List<SendResult> sendEach(List<Message> messages) throws FirebaseMessagingException;
+
+    record SendResult(boolean successful, MessagingErrorCode errorCode, String error) {
+        public static final SendResult SUCCESS = new SendResult(true, null, null);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.transaction.annotation.Transactional;
 import petitus.petcareplus.model.FcmToken;
 import petitus.petcareplus.repository.FcmTokenRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,6 +32,14 @@ public class FcmTokenService {
         fcmTokenRepository.save(fcmToken);
     }
 
+    /**
+     * Remove tokens FCM reported as no longer registered
+     */
+    @Transactional
+    public int deleteTokens(Collection<String> tokens) {
+        return fcmTokenRepository.deleteByTokenIn(tokens);
+    }
+
     public List<String> getUserTokens(UUID userId) {
         return fcmTokenRepository.findByUserId(userId).stream()
                 .map(FcmToken::getToken)
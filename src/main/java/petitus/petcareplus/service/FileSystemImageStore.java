@@ -0,0 +1,31 @@
+package petitus.petcareplus.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Stores variants in a local directory, for tests and local development.
+ */
+@Service
+@ConditionalOnProperty(name = "application.chat.images.store", havingValue = "filesystem")
+public class FileSystemImageStore implements ImageStore {
+    @Value("${application.chat.images.filesystem.directory:${java.io.tmpdir}/chat-images}")
+    private Path directory;
+
+    @Override
+    public String store(String name, byte[] content, String contentType) throws IOException {
+        Path target = directory.resolve(name).normalize();
+        if (!target.startsWith(directory.normalize())) {
+            throw new IOException("Invalid image name: " + name);
+        }
+
+        Files.createDirectories(target.getParent());
+        Files.write(target, content);
+        return target.toUri().toString();
+    }
+}
@@ -1,20 +1,23 @@
 package petitus.petcareplus.service;
 
+import com.google.firebase.messaging.BatchResponse;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
 import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class FirebaseMessagingService {
+public class FirebaseMessagingService implements FcmSender {
 
     private final FirebaseMessaging firebaseMessaging;
 
@@ -37,4 +40,21 @@ public class FirebaseMessagingService {
             log.error("Failed to send notification to token: {}", token, e);
         }
     }
+
+    @Override
+    public List<SendResult> sendEach(List<Message> messages) throws FirebaseMessagingException {
+        BatchResponse batchResponse = firebaseMessaging.sendEach(messages);
+
+        return batchResponse.getResponses().stream()
+                .map(FirebaseMessagingService::toSendResult)
+                .toList();
+    }
+
+    private static SendResult toSendResult(SendResponse response) {
+        if (response.isSuccessful()) {
+            return SendResult.SUCCESS;
+        }
+        FirebaseMessagingException exception = response.getException();
+        return new SendResult(false, exception.getMessagingErrorCode(), exception.getMessage());
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package petitus.petcareplus.service;
+
+import java.io.IOException;
+
+/**
+ * Storage for processed image variants.
+ */
+public interface ImageStore {
+    /**
+     * Store an encoded image.
+     *
+     * @param name        Name of the image, unique per variant.
+     * @param content     Encoded image.
+     * @param contentType Mime type of the content.
+     * @return URL the image can be loaded from.
+     */
+    String store(String name, byte[] content, String contentType) throws IOException;
+}
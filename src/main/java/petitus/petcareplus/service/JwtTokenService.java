@@ -1,43 +1,303 @@
 package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import petitus.petcareplus.exceptions.ResourceNotFoundException;
 import petitus.petcareplus.model.JwtToken;
-import petitus.petcareplus.repository.JwtTokenRepository;
+import petitus.petcareplus.utils.HashUtil;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * Redis token store. Every key carries a native TTL, lookups are a single GET on the SHA-256 of the token:
+ * <ul>
+ *     <li>{@code jwt:access:{sha256}} -> session id, expires with the access token</li>
+ *     <li>{@code jwt:refresh:{sha256}} -> session id, expires with the refresh token</li>
+ *     <li>{@code jwt:session:{id}} -> hash of the session</li>
+ *     <li>{@code jwt:user_sessions:{userId}} -> session ids scored by their expiry, used to revoke all sessions of a
+ *     user. Expired members are trimmed on every login.</li>
+ * </ul>
+ */
 @Service
 @RequiredArgsConstructor
 public class JwtTokenService {
-    private final JwtTokenRepository jwtTokenRepository;
+    private static final String ACCESS_KEY_PREFIX = "jwt:access:";
+
+    private static final String REFRESH_KEY_PREFIX = "jwt:refresh:";
+
+    private static final String SESSION_KEY_PREFIX = "jwt:session:";
+
+    private static final String USER_SESSIONS_KEY_PREFIX = "jwt:user_sessions:";
+
+    // Plain sets written before the sessions were scored, they expire with their last session
+    private static final String LEGACY_USER_SESSIONS_KEY_PREFIX = "jwt:user:";
+
+    private static final String FIELD_USER_ID = "userId";
+
+    private static final String FIELD_TOKEN = "token";
+
+    private static final String FIELD_REFRESH_TOKEN = "refreshToken";
+
+    private static final String FIELD_IP_ADDRESS = "ipAddress";
+
+    @Value("${application.security.jwt.access-token.expiration}")
+    private long tokenExpiresIn;
+
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private long refreshTokenExpiresIn;
+
+    private final StringRedisTemplate redisTemplate;
 
     private final MessageSourceService messageSourceService;
 
     public JwtToken findByUserIdAndRefreshToken(UUID id, String refreshToken) {
-        return jwtTokenRepository.findByUserIdAndRefreshToken(id, refreshToken)
-                .orElseThrow(() -> new ResourceNotFoundException(messageSourceService.get("not_found_with_param",
-                        new String[]{messageSourceService.get("token")})));
+        JwtToken jwtToken = findSession(redisTemplate.opsForValue().get(refreshKey(refreshToken)));
+        if (jwtToken == null || !id.equals(jwtToken.getUserId()) || !refreshToken.equals(jwtToken.getRefreshToken())) {
+            throw notFound();
+        }
+
+        return jwtToken;
     }
 
     public JwtToken findByUserIdAndToken(UUID id, String token) {
-        return jwtTokenRepository.findByUserIdAndToken(id, token)
-                .orElseThrow(() -> new ResourceNotFoundException(messageSourceService.get("not_found_with_param",
-                        new String[]{messageSourceService.get("token")})));
+        JwtToken jwtToken = findSession(redisTemplate.opsForValue().get(accessKey(token)));
+        if (jwtToken == null || !id.equals(jwtToken.getUserId()) || !token.equals(jwtToken.getToken())) {
+            throw notFound();
+        }
+
+        return jwtToken;
     }
 
     public JwtToken findByTokenOrRefreshToken(String token) {
-        return jwtTokenRepository.findByTokenOrRefreshToken(token, token)
-                .orElseThrow(() -> new ResourceNotFoundException(messageSourceService.get("not_found_with_param",
-                        new String[]{messageSourceService.get("token")})));
+        List<String> sessionIds = redisTemplate.opsForValue().multiGet(List.of(accessKey(token), refreshKey(token)));
+        String sessionId = sessionIds == null ? null : sessionIds.stream()
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+
+        JwtToken jwtToken = findSession(sessionId);
+        if (jwtToken == null) {
+            throw notFound();
+        }
+
+        return jwtToken;
+    }
+
+    /**
+     * Whether the token is a live access or refresh token, in one round-trip
+     */
+    public boolean exists(String token) {
+        Long count = redisTemplate.countExistingKeys(List.of(accessKey(token), refreshKey(token)));
+        return count != null && count > 0;
     }
 
+    /**
+     * Store a new session (login), all keys are written in one pipeline
+     */
     public void save(JwtToken jwtToken) {
-        jwtTokenRepository.save(jwtToken);
+        if (jwtToken.getId() == null) {
+            jwtToken.setId(UUID.randomUUID());
+        }
+        Duration sessionTtl = Duration.ofMillis(jwtToken.getTokenTTL() != null
+                ? jwtToken.getTokenTTL() : refreshTokenExpiresIn);
+        long now = System.currentTimeMillis();
+        long sessionExpiresAt = now + sessionTtl.toMillis();
+
+        // The set lives as long as its longest session, a shorter new session must not cut it
+        String userSessionsKey = userSessionsKey(jwtToken.getUserId());
+        Set<ZSetOperations.TypedTuple<String>> latest = redisTemplate.opsForZSet()
+                .reverseRangeWithScores(userSessionsKey, 0, 0);
+        long userSessionsExpireAt = latest == null ? sessionExpiresAt : latest.stream()
+                .map(ZSetOperations.TypedTuple::getScore)
+                .filter(Objects::nonNull)
+                .mapToLong(Double::longValue)
+                .reduce(sessionExpiresAt, Math::max);
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                String sessionId = jwtToken.getId().toString();
+                String sessionKey = sessionKey(jwtToken.getId());
+
+                ops.opsForHash().putAll(sessionKey, toHash(jwtToken));
+                ops.expire(sessionKey, sessionTtl);
+                ops.opsForValue().set(accessKey(jwtToken.getToken()), sessionId, Duration.ofMillis(tokenExpiresIn));
+                ops.opsForValue().set(refreshKey(jwtToken.getRefreshToken()), sessionId, sessionTtl);
+                ops.opsForZSet().removeRangeByScore(userSessionsKey, Double.NEGATIVE_INFINITY, now);
+                ops.opsForZSet().add(userSessionsKey, sessionId, sessionExpiresAt);
+                ops.expireAt(userSessionsKey, Instant.ofEpochMilli(userSessionsExpireAt));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Replace the access token of an existing session (refresh), in one pipeline
+     */
+    public void rotateAccessToken(JwtToken jwtToken, String newToken) {
+        String previousToken = jwtToken.getToken();
+        jwtToken.setToken(newToken);
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                if (previousToken != null) {
+                    ops.delete(accessKey(previousToken));
+                }
+                ops.opsForValue().set(accessKey(newToken), jwtToken.getId().toString(), Duration.ofMillis(tokenExpiresIn));
+                ops.opsForHash().put(sessionKey(jwtToken.getId()), FIELD_TOKEN, newToken);
+                return null;
+            }
+        });
     }
 
     public void delete(JwtToken jwtToken) {
-        jwtTokenRepository.delete(jwtToken);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                deleteSession((RedisOperations<String, String>) operations, jwtToken);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Revoke every session of a user
+     *
+     * @return the revoked sessions
+     */
+    public List<JwtToken> deleteAllByUserId(UUID userId) {
+        String userSessionsKey = userSessionsKey(userId);
+        String legacyUserSessionsKey = LEGACY_USER_SESSIONS_KEY_PREFIX + userId;
+        Set<String> sessionIds = new LinkedHashSet<>();
+        Set<String> liveSessionIds = redisTemplate.opsForZSet().rangeByScore(userSessionsKey,
+                System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        if (liveSessionIds != null) {
+            sessionIds.addAll(liveSessionIds);
+        }
+        Set<String> legacySessionIds = redisTemplate.opsForSet().members(legacyUserSessionsKey);
+        if (legacySessionIds != null) {
+            sessionIds.addAll(legacySessionIds);
+        }
+        if (sessionIds.isEmpty()) {
+            redisTemplate.delete(userSessionsKey);
+            return List.of();
+        }
+
+        List<Object> hashes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                sessionIds.forEach(sessionId -> ops.opsForHash().entries(SESSION_KEY_PREFIX + sessionId));
+                return null;
+            }
+        });
+
+        List<JwtToken> sessions = new ArrayList<>();
+        int index = 0;
+        for (String sessionId : sessionIds) {
+            JwtToken jwtToken = fromHash(UUID.fromString(sessionId), (Map<?, ?>) hashes.get(index++));
+            if (jwtToken != null) {
+                sessions.add(jwtToken);
+            }
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(@NonNull RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                sessions.forEach(jwtToken -> deleteSession(ops, jwtToken));
+                ops.delete(List.of(userSessionsKey, legacyUserSessionsKey));
+                return null;
+            }
+        });
+
+        return sessions;
+    }
+
+    private void deleteSession(RedisOperations<String, String> ops, JwtToken jwtToken) {
+        ops.delete(List.of(
+                sessionKey(jwtToken.getId()),
+                accessKey(jwtToken.getToken()),
+                refreshKey(jwtToken.getRefreshToken())));
+        ops.opsForZSet().remove(userSessionsKey(jwtToken.getUserId()), jwtToken.getId().toString());
+    }
+
+    private JwtToken findSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+
+        UUID id = UUID.fromString(sessionId);
+        return fromHash(id, redisTemplate.opsForHash().entries(sessionKey(id)));
+    }
+
+    private Map<String, String> toHash(JwtToken jwtToken) {
+        Map<String, String> hash = new HashMap<>();
+        hash.put(FIELD_USER_ID, jwtToken.getUserId().toString());
+        hash.put(FIELD_TOKEN, jwtToken.getToken());
+        hash.put(FIELD_REFRESH_TOKEN, jwtToken.getRefreshToken());
+        if (jwtToken.getIpAddress() != null) {
+            hash.put(FIELD_IP_ADDRESS, jwtToken.getIpAddress());
+        }
+        return hash;
+    }
+
+    private JwtToken fromHash(UUID id, Map<?, ?> hash) {
+        if (hash == null || hash.isEmpty()) {
+            return null;
+        }
+
+        return JwtToken.builder()
+                .id(id)
+                .userId(UUID.fromString((String) hash.get(FIELD_USER_ID)))
+                .token((String) hash.get(FIELD_TOKEN))
+                .refreshToken((String) hash.get(FIELD_REFRESH_TOKEN))
+                .ipAddress((String) hash.get(FIELD_IP_ADDRESS))
+                .build();
+    }
+
+    private ResourceNotFoundException notFound() {
+        return new ResourceNotFoundException(messageSourceService.get("not_found_with_param",
+                new String[]{messageSourceService.get("token")}));
+    }
+
+    private static String accessKey(String token) {
+        return ACCESS_KEY_PREFIX + HashUtil.sha256Hex(token);
+    }
+
+    private static String refreshKey(String token) {
+        return REFRESH_KEY_PREFIX + HashUtil.sha256Hex(token);
+    }
+
+    private static String sessionKey(UUID id) {
+        return SESSION_KEY_PREFIX + id;
+    }
+
+    private static String userSessionsKey(UUID userId) {
+        return USER_SESSIONS_KEY_PREFIX + userId;
     }
-}
\ No newline at end of file
+}
@@ -2,29 +2,50 @@ package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import petitus.petcareplus.dto.request.notification.NotificationRequest;
 import petitus.petcareplus.dto.response.notification.AdminNotificationResponse;
+import petitus.petcareplus.dto.response.notification.NotificationReplayResponse;
 import petitus.petcareplus.dto.response.notification.NotificationResponse;
+import petitus.petcareplus.event.NotificationCreatedEvent;
 import petitus.petcareplus.exceptions.ResourceNotFoundException;
 import petitus.petcareplus.model.Notification;
 import petitus.petcareplus.model.spec.criteria.PaginationCriteria;
+import petitus.petcareplus.repository.NotificationCounterRepository;
 import petitus.petcareplus.repository.NotificationRepository;
 import petitus.petcareplus.utils.PageRequestBuilder;
+import petitus.petcareplus.utils.enums.Notifications;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+    private static final int REPLAY_BATCH_SIZE = 200;
+
+    // Sort after and before every real id, so a boundary given as a timestamp alone keeps all rows at that timestamp
+    private static final UUID MAX_UUID = new UUID(-1L, -1L);
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
     private final NotificationRepository notificationRepository;
+    private final NotificationCounterRepository notificationCounterRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public NotificationResponse pushNotification(NotificationRequest request) {
@@ -49,17 +70,175 @@ public class NotificationService {
                 .createdAt(LocalDateTime.now())
                 .build();
         notificationRepository.save(notification);
-        return convertToResponse(notification);
+        notificationCounterRepository.addUnreadCount(notification.getUserIdReceive(), 1);
+
+        NotificationResponse response = convertToResponse(notification);
+        eventPublisher.publishEvent(new NotificationCreatedEvent(response));
+        return response;
+    }
+
+    /**
+     * Fold collapsed chat notifications into the live (unread, not deleted) notification of each recipient and
+     * sender, creating it when there is none. Used by {@link ChatNotificationCoalescer} for write-behind batches.
+     */
+    @Transactional
+    public void mergeChatNotifications(List<CollapsedNotification> updates) {
+        Map<String, Notification> liveNotifications = findLiveChatNotifications(updates);
+
+        List<Notification> created = new ArrayList<>();
+        List<Notification> changed = new ArrayList<>(updates.size());
+        List<CollapsedNotification> createdElsewhere = new ArrayList<>();
+        // Sorted so concurrent batches lock counter rows in the same order
+        Map<UUID, Long> createdPerRecipient = new TreeMap<>();
+        for (CollapsedNotification update : updates) {
+            Notification notification = liveNotifications.get(update.recipientId() + ":" + update.senderId());
+            if (notification != null) {
+                changed.add(fold(notification, update));
+            } else if (createLiveChatNotification(update, created)) {
+                createdPerRecipient.merge(update.recipientId(), 1L, Long::sum);
+            } else {
+                createdElsewhere.add(update);
+            }
+        }
+
+        // Another node created these since the lookup, its transaction has committed by now
+        if (!createdElsewhere.isEmpty()) {
+            Map<String, Notification> liveElsewhere = findLiveChatNotifications(createdElsewhere);
+            for (CollapsedNotification update : createdElsewhere) {
+                Notification notification = liveElsewhere.get(update.recipientId() + ":" + update.senderId());
+                if (notification != null) {
+                    changed.add(fold(notification, update));
+                } else if (createLiveChatNotification(update, created)) {
+                    // Read in the meantime, this starts the next one
+                    createdPerRecipient.merge(update.recipientId(), 1L, Long::sum);
+                } else {
+                    // Rolled back, the coalescer retries the batch with its next flush
+                    throw new IllegalStateException("Live chat notification of " + update.recipientId() + " from "
+                            + update.senderId() + " keeps changing concurrently");
+                }
+            }
+        }
+
+        notificationRepository.saveAll(changed);
+        createdPerRecipient.forEach(notificationCounterRepository::addUnreadCount);
+
+        // Updated notifications are pushed again, clients replace them by id
+        Stream.concat(created.stream(), changed.stream()).forEach(notification -> eventPublisher.publishEvent(
+                new NotificationCreatedEvent(convertToResponse(notification))));
+    }
+
+    private Map<String, Notification> findLiveChatNotifications(List<CollapsedNotification> updates) {
+        Set<UUID> recipientIds = updates.stream().map(CollapsedNotification::recipientId).collect(Collectors.toSet());
+        Set<UUID> senderIds = updates.stream().map(CollapsedNotification::senderId).collect(Collectors.toSet());
+
+        Map<String, Notification> liveNotifications = new HashMap<>();
+        for (Notification notification : notificationRepository.findLiveNotifications(Notifications.CHAT,
+                recipientIds, senderIds)) {
+            liveNotifications.put(notification.getUserIdReceive() + ":" + notification.getUserIdSend(), notification);
+        }
+        return liveNotifications;
+    }
+
+    /**
+     * @return false when another transaction created the live notification of the pair first.
+     */
+    private boolean createLiveChatNotification(CollapsedNotification update, List<Notification> created) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Notification notification = Notification.builder()
+                .id(UUID.randomUUID())
+                .userIdSend(update.senderId())
+                .userIdReceive(update.recipientId())
+                .type(Notifications.CHAT)
+                .title(chatTitle(update.count()))
+                .message(update.message())
+                .relatedId(update.relatedId())
+                .aggregateCount(update.count())
+                .isRead(false)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        if (notificationRepository.insertLiveChatNotification(notification.getId(), notification.getUserIdSend(),
+                notification.getUserIdReceive(), notification.getTitle(), notification.getMessage(),
+                notification.getRelatedId(), notification.getAggregateCount(), now) == 0) {
+            return false;
+        }
+
+        created.add(notification);
+        return true;
+    }
+
+    private static Notification fold(Notification notification, CollapsedNotification update) {
+        int count = notification.getAggregateCount() + update.count();
+        notification.setAggregateCount(count);
+        notification.setTitle(chatTitle(count));
+        notification.setMessage(update.message());
+        notification.setRelatedId(update.relatedId());
+        // Resurface the collapsed notification at the top of the inbox
+        notification.setUpdatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        return notification;
+    }
+
+    private static String chatTitle(int count) {
+        return count == 1 ? "New Message" : count + " new messages";
     }
 
-    public List<NotificationResponse> getAllNotifications() {
+    /**
+     * Inbox page, most recently updated first.
+     *
+     * @param lastUpdatedAt updatedAt of the last notification of the previous page, null for the first page.
+     * @param lastId        id of the last notification of the previous page.
+     * @param limit         Page size, at most {@value #MAX_INBOX_PAGE_SIZE}.
+     */
+    public List<NotificationResponse> getNotifications(LocalDateTime lastUpdatedAt, UUID lastId, int limit) {
         UUID currentUserId = userService.getCurrentUserId();
+        PageRequest pageRequest = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_INBOX_PAGE_SIZE)));
 
-        return notificationRepository.findByUserIdReceive(currentUserId).stream()
+        List<Notification> notifications = lastUpdatedAt == null
+                ? notificationRepository.findInbox(currentUserId, pageRequest)
+                : notificationRepository.findInboxOlderThan(currentUserId, lastUpdatedAt,
+                        lastId != null ? lastId : MAX_UUID, pageRequest);
+
+        return notifications.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
 
+    public long getUnreadCount() {
+        UUID currentUserId = userService.getCurrentUserId();
+        return notificationCounterRepository.findUnreadCount(currentUserId).orElse(0L);
+    }
+
+    /**
+     * Catch-up for a reconnecting client: the notifications created or updated after the given point, least recently
+     * updated first, at most {@value #REPLAY_BATCH_SIZE} per call. The point is the updatedAt the client received,
+     * not the current one of that notification, which may have been bumped since.
+     */
+    public NotificationReplayResponse getNotificationsSince(UUID userId, LocalDateTime sinceUpdatedAt, UUID sinceId) {
+        long unreadCount = notificationCounterRepository.findUnreadCount(userId).orElse(0L);
+
+        if (sinceUpdatedAt == null) {
+            return NotificationReplayResponse.builder()
+                    .notifications(List.of())
+                    .resync(true)
+                    .unreadCount(unreadCount)
+                    .build();
+        }
+
+        List<Notification> notifications = notificationRepository.findInboxNewerThan(userId, sinceUpdatedAt,
+                sinceId != null ? sinceId : MIN_UUID, PageRequest.of(0, REPLAY_BATCH_SIZE + 1));
+        boolean hasMore = notifications.size() > REPLAY_BATCH_SIZE;
+
+        return NotificationReplayResponse.builder()
+                .notifications(notifications.stream()
+                        .limit(REPLAY_BATCH_SIZE)
+                        .map(this::convertToResponse)
+                        .toList())
+                .hasMore(hasMore)
+                .unreadCount(unreadCount)
+                .build();
+    }
+
     public NotificationResponse getNotificationById(UUID notificationId) {
         UUID currentUserId = userService.getCurrentUserId();
 
@@ -73,10 +252,27 @@ public class NotificationService {
 
     @Transactional
     public void markAsRead(UUID notificationId) {
+        UUID currentUserId = userService.getCurrentUserId();
+
+        if (notificationRepository.markAsRead(notificationId, currentUserId) > 0) {
+            notificationCounterRepository.addUnreadCount(currentUserId, -1);
+            return;
+        }
+
+        // Nothing changed: either already read or not an inbox notification of this user
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        if (!notification.getUserIdReceive().equals(currentUserId)) {
+            throw new ResourceNotFoundException("Notification does not belong to user");
+        }
+    }
+
+    @Transactional
+    public void markAllAsRead() {
+        UUID currentUserId = userService.getCurrentUserId();
+
+        notificationRepository.markAllAsRead(currentUserId);
+        notificationCounterRepository.resetUnreadCount(currentUserId);
     }
 
     @Transactional
@@ -91,6 +287,9 @@ public class NotificationService {
 
         notification.setDeletedAt(LocalDateTime.now());
         notificationRepository.save(notification);
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            notificationCounterRepository.addUnreadCount(currentUserId, -1);
+        }
     }
 
     private NotificationResponse convertToResponse(Notification notification) {
@@ -103,8 +302,10 @@ public class NotificationService {
                 .title(notification.getTitle())
                 .message(notification.getMessage())
                 .relatedId(notification.getRelatedId())
+                .aggregateCount(notification.getAggregateCount())
                 .isRead(notification.getIsRead())
                 .createdAt(notification.getCreatedAt())
+                .updatedAt(notification.getUpdatedAt())
                 .deletedAt(notification.getDeletedAt())
                 .build();
     }
@@ -138,4 +339,10 @@ public class NotificationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
         return mapToAdminBookingResponse(notification);
     }
+
+    /**
+     * Events of one recipient and sender collapsed in memory, {@code relatedId} and {@code message} are the latest.
+     */
+    public record CollapsedNotification(UUID recipientId, UUID senderId, UUID relatedId, String message, int count) {
+    }
 }
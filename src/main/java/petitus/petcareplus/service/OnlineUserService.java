@@ -5,31 +5,52 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Presence is one sorted set of user ids scored by their last heartbeat (epoch millis). A user is online while the
+ * score is younger than {@link #ONLINE_USER_TTL_MILLIS}, so any number of users can be checked in one ZMSCORE and
+ * stale members are swept with a single ZREMRANGEBYSCORE.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OnlineUserService {
 
-    private static final String REDIS_ONLINE_USERS_KEY = "chat:online_users";
-    private static final int ONLINE_USER_TTL_SECONDS = 300; // 5 minutes TTL
+    private static final String REDIS_PRESENCE_KEY = "chat:presence";
+    private static final long ONLINE_USER_TTL_MILLIS = 300_000; // 5 minutes TTL
+
+    // Heartbeats closer than this to the last one written by this node are not written again
+    private static final long HEARTBEAT_WRITE_INTERVAL_MILLIS = 30_000;
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
 
     private final RedisTemplate<String, String> redisTemplate;
 
+    /**
+     * Last heartbeat this node wrote per user, absorbs heartbeat storms.
+     */
+    private final Map<UUID, Long> lastHeartbeatWrites = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweep = new AtomicLong();
+
     /**
      * Handle user presence - mark user as online or offline
      */
     public void handleUserPresence(UUID userId, boolean isOnline) {
         try {
-            String userIdStr = userId.toString();
-            String redisKey = REDIS_ONLINE_USERS_KEY + ":" + userIdStr;
-
             if (isOnline) {
-                redisTemplate.opsForValue().set(redisKey, "online", Duration.ofSeconds(ONLINE_USER_TTL_SECONDS));
+                long now = System.currentTimeMillis();
+                redisTemplate.opsForZSet().add(REDIS_PRESENCE_KEY, userId.toString(), now);
+                lastHeartbeatWrites.put(userId, now);
             } else {
-                redisTemplate.delete(redisKey);
+                redisTemplate.opsForZSet().remove(REDIS_PRESENCE_KEY, userId.toString());
+                lastHeartbeatWrites.remove(userId);
             }
 
         } catch (Exception e) {
@@ -42,8 +63,8 @@ public class OnlineUserService {
      */
     public boolean isUserOnline(String userId) {
         try {
-            String redisKey = REDIS_ONLINE_USERS_KEY + ":" + userId;
-            return Boolean.TRUE.equals(redisTemplate.hasKey(redisKey));
+            Double lastHeartbeat = redisTemplate.opsForZSet().score(REDIS_PRESENCE_KEY, userId);
+            return isFresh(lastHeartbeat, System.currentTimeMillis());
         } catch (Exception e) {
             log.error("Error checking user online status in Redis for user {}: {}", userId, e.getMessage(), e);
             return false;
@@ -51,24 +72,65 @@ public class OnlineUserService {
     }
 
     /**
-     * Handle heartbeat - refresh user's online status
+     * Filter the given users down to the ones currently online, in one round-trip
      */
-    public void handleHeartbeat(UUID userId) {
+    public List<String> findOnlineUsers(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
         try {
-            String redisKey = REDIS_ONLINE_USERS_KEY + ":" + userId.toString();
+            List<String> candidates = new ArrayList<>(userIds);
+            List<Double> lastHeartbeats = redisTemplate.opsForZSet()
+                    .score(REDIS_PRESENCE_KEY, candidates.toArray());
 
-            if (Boolean.TRUE.equals(redisTemplate.hasKey(redisKey))) {
-                // Refresh the TTL without triggering presence broadcast
-                System.out.println("User " + userId + " is online, refreshing TTL.");
-                redisTemplate.expire(redisKey, Duration.ofSeconds(ONLINE_USER_TTL_SECONDS));
-            } else {
-                System.out.println("User " + userId + " is not online, marking as online now.");
-                handleUserPresence(userId, true);
+            long now = System.currentTimeMillis();
+            List<String> onlineUsers = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                if (lastHeartbeats != null && isFresh(lastHeartbeats.get(i), now)) {
+                    onlineUsers.add(candidates.get(i));
+                }
             }
+            return onlineUsers;
         } catch (Exception e) {
-            System.out.println("Error handling heartbeat for user " + userId + ": " + e.getMessage());
-            log.error("Error handling heartbeat for user {}: {}", userId, e.getMessage(), e);
+            log.error("Error checking online status of {} users in Redis: {}", userIds.size(), e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Handle heartbeat - refresh user's online status
+     */
+    public void handleHeartbeat(UUID userId) {
+        long now = System.currentTimeMillis();
+        Long lastWrite = lastHeartbeatWrites.get(userId);
+        if (lastWrite == null || now - lastWrite >= HEARTBEAT_WRITE_INTERVAL_MILLIS) {
+            // Refresh the score without triggering presence broadcast
             handleUserPresence(userId, true);
         }
+
+        sweepIfDue(now);
+    }
+
+    /**
+     * Drop every member whose last heartbeat is older than the TTL, at most once per interval per node
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            return;
+        }
+
+        long cutoff = now - ONLINE_USER_TTL_MILLIS;
+        lastHeartbeatWrites.values().removeIf(lastWrite -> lastWrite < cutoff);
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(REDIS_PRESENCE_KEY, Double.NEGATIVE_INFINITY, cutoff);
+        } catch (Exception e) {
+            log.error("Error sweeping expired presence entries: {}", e.getMessage(), e);
+        }
+    }
+
+    private static boolean isFresh(Double lastHeartbeat, long now) {
+        return lastHeartbeat != null && now - lastHeartbeat.longValue() < ONLINE_USER_TTL_MILLIS;
     }
 }
@@ -0,0 +1,400 @@
+package petitus.petcareplus.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import petitus.petcareplus.dto.response.booking.ProviderAvailabilityResponse;
+import petitus.petcareplus.dto.response.booking.TimeSlotResponse;
+import petitus.petcareplus.event.ProviderScheduleChangedEvent;
+import petitus.petcareplus.exceptions.BadRequestException;
+import petitus.petcareplus.repository.BookingRepository;
+import petitus.petcareplus.repository.ServiceProviderProfileRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Free-slot search over providers' calendars.
+ * <p>
+ * Each provider's calendar (working hours from {@code availableTime} plus the active bookings from now on) is loaded
+ * once, kept in memory and updated in place when bookings are created or cancelled on this node. Other nodes are told
+ * to drop their copy through {@link #SCHEDULE_CHANNEL}. The result is advisory, {@link BookingService#createBooking}
+ * still performs the authoritative check.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProviderAvailabilityService implements MessageListener {
+    public static final String SCHEDULE_CHANNEL = "booking:provider_schedule";
+
+    private static final int MAX_RANGE_DAYS = 31;
+
+    private static final int MAX_PROVIDERS = 50;
+
+    private static final int DEFAULT_MIN_SLOT_MINUTES = 30;
+
+    private static final long CALENDAR_TTL_MILLIS = 10 * 60 * 1000; // 10 minutes, safety net for missed invalidations
+
+    private static final int MAX_CALENDARS = 5000;
+
+    private final BookingRepository bookingRepository;
+
+    private final ServiceProviderProfileRepository serviceProviderProfileRepository;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final MessageSourceService messageSourceService;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<UUID, ProviderCalendar> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every change so that a calendar loaded concurrently with a change is not cached
+     */
+    private final AtomicLong changeEpoch = new AtomicLong();
+
+    /**
+     * Free slots of the given providers between the start of {@code from} and the end of {@code to}.
+     * Slots in the past are never returned. Slots may end exactly when a booking starts and start exactly when one
+     * ends, a returned slot can be booked as is.
+     */
+    @Transactional(readOnly = true)
+    public List<ProviderAvailabilityResponse> getAvailability(List<UUID> providerIds, LocalDate from, LocalDate to,
+                                                              Integer minMinutes) {
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException(messageSourceService.get("availability_range_invalid",
+                    new Object[]{MAX_RANGE_DAYS}));
+        }
+
+        List<UUID> ids = providerIds.stream().distinct().toList();
+        if (ids.isEmpty() || ids.size() > MAX_PROVIDERS) {
+            throw new BadRequestException(messageSourceService.get("availability_too_many_providers",
+                    new Object[]{MAX_PROVIDERS}));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime rangeStart = from.atStartOfDay().isBefore(now) ? now : from.atStartOfDay();
+        LocalDateTime rangeEnd = to.plusDays(1).atStartOfDay();
+        Duration minDuration = Duration.ofMinutes(minMinutes != null && minMinutes > 0
+                ? minMinutes : DEFAULT_MIN_SLOT_MINUTES);
+
+        Map<UUID, ProviderCalendar> providerCalendars = getCalendars(ids);
+
+        return ids.stream()
+                .map(id -> ProviderAvailabilityResponse.builder()
+                        .providerId(id)
+                        .freeSlots(rangeStart.isBefore(rangeEnd)
+                                ? providerCalendars.get(id).freeSlots(rangeStart, rangeEnd, minDuration)
+                                : List.of())
+                        .build())
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProviderScheduleChanged(ProviderScheduleChangedEvent event) {
+        changeEpoch.incrementAndGet();
+
+        ProviderCalendar calendar = calendars.get(event.getProviderId());
+        if (calendar != null) {
+            if (event.getBookingId() == null) {
+                calendars.remove(event.getProviderId());
+            } else if (event.isActive()) {
+                calendar.add(event.getBookingId(), event.getStart(), event.getEnd());
+            } else {
+                calendar.remove(event.getBookingId());
+            }
+        }
+
+        try {
+            redisTemplate.convertAndSend(SCHEDULE_CHANNEL, nodeId + ":" + event.getProviderId());
+        } catch (Exception e) {
+            log.error("Error publishing schedule change for provider {}: {}", event.getProviderId(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 2);
+        if (parts.length != 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        changeEpoch.incrementAndGet();
+        calendars.remove(UUID.fromString(parts[1]));
+    }
+
+    private Map<UUID, ProviderCalendar> getCalendars(List<UUID> providerIds) {
+        long now = System.currentTimeMillis();
+        Map<UUID, ProviderCalendar> result = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+
+        for (UUID providerId : providerIds) {
+            ProviderCalendar calendar = calendars.get(providerId);
+            if (calendar != null && now - calendar.loadedAt < CALENDAR_TTL_MILLIS) {
+                result.put(providerId, calendar);
+            } else {
+                missing.add(providerId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            result.putAll(loadCalendars(missing));
+        }
+
+        return result;
+    }
+
+    /**
+     * Load the calendars of all given providers with two queries
+     */
+    @SuppressWarnings("unchecked")
+    private Map<UUID, ProviderCalendar> loadCalendars(Collection<UUID> providerIds) {
+        long epoch = changeEpoch.get();
+
+        Map<UUID, WeeklyHours> hours = new HashMap<>();
+        for (Object[] row : serviceProviderProfileRepository.findAvailableTimesByProviderIds(providerIds)) {
+            hours.put((UUID) row[0], WeeklyHours.parse((Map<String, Object>) row[1]));
+        }
+
+        Map<UUID, ProviderCalendar> loaded = new HashMap<>();
+        for (UUID providerId : providerIds) {
+            loaded.put(providerId, new ProviderCalendar(hours.getOrDefault(providerId, WeeklyHours.ALL_DAY)));
+        }
+
+        for (Object[] row : bookingRepository.findActiveSchedulesByProviderIds(providerIds, LocalDateTime.now())) {
+            loaded.get((UUID) row[1]).add((UUID) row[0], (LocalDateTime) row[2], (LocalDateTime) row[3]);
+        }
+
+        // A booking or profile changed while we were reading, serve this result but do not keep it
+        if (changeEpoch.get() == epoch) {
+            if (calendars.size() + loaded.size() > MAX_CALENDARS) {
+                evictForCapacity(loaded.size());
+            }
+            calendars.putAll(loaded);
+        }
+
+        return loaded;
+    }
+
+    private void evictForCapacity(int needed) {
+        long now = System.currentTimeMillis();
+        calendars.values().removeIf(calendar -> now - calendar.loadedAt >= CALENDAR_TTL_MILLIS);
+
+        Iterator<UUID> iterator = calendars.keySet().iterator();
+        int toRemove = calendars.size() + needed - MAX_CALENDARS;
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private record BookedInterval(UUID bookingId, LocalDateTime start, LocalDateTime end) {
+    }
+
+    /**
+     * Interval index of one provider's active bookings, ordered by start. Since bookings are bounded in length,
+     * everything overlapping [from, to) starts within [from - longest booking, to).
+     */
+    private static final class ProviderCalendar {
+        private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+        private final WeeklyHours hours;
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private final NavigableSet<BookedInterval> bookings = new TreeSet<>(
+                Comparator.comparing(BookedInterval::start).thenComparing(BookedInterval::bookingId));
+
+        private final Map<UUID, BookedInterval> bookingsById = new HashMap<>();
+
+        private Duration longest = Duration.ZERO;
+
+        private ProviderCalendar(WeeklyHours hours) {
+            this.hours = hours;
+        }
+
+        synchronized void add(UUID bookingId, LocalDateTime start, LocalDateTime end) {
+            remove(bookingId);
+
+            BookedInterval interval = new BookedInterval(bookingId, start, end);
+            bookings.add(interval);
+            bookingsById.put(bookingId, interval);
+
+            Duration length = Duration.between(start, end);
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        synchronized void remove(UUID bookingId) {
+            BookedInterval interval = bookingsById.remove(bookingId);
+            if (interval != null) {
+                bookings.remove(interval);
+            }
+        }
+
+        synchronized List<TimeSlotResponse> freeSlots(LocalDateTime from, LocalDateTime to, Duration minDuration) {
+            List<TimeSlotResponse> slots = new ArrayList<>();
+
+            for (LocalDate day = from.toLocalDate().minusDays(1); day.isBefore(to.toLocalDate()); day = day.plusDays(1)) {
+                for (Window window : hours.windows(day.getDayOfWeek())) {
+                    LocalDateTime windowStart = day.atTime(window.start());
+                    LocalDateTime windowEnd = window.end().isAfter(window.start())
+                            ? day.atTime(window.end())
+                            : day.plusDays(1).atTime(window.end()); // ends past midnight
+
+                    if (windowStart.isBefore(from)) {
+                        windowStart = from;
+                    }
+                    if (windowEnd.isAfter(to)) {
+                        windowEnd = to;
+                    }
+                    if (windowStart.isBefore(windowEnd)) {
+                        subtractBookings(windowStart, windowEnd, minDuration, slots);
+                    }
+                }
+            }
+
+            return slots;
+        }
+
+        private void subtractBookings(LocalDateTime from, LocalDateTime to, Duration minDuration,
+                                      List<TimeSlotResponse> slots) {
+            LocalDateTime cursor = from;
+            BookedInterval probe = new BookedInterval(LOWEST_ID, from.minus(longest), null);
+
+            for (BookedInterval booking : bookings.tailSet(probe, true)) {
+                if (!booking.start().isBefore(to)) {
+                    break;
+                }
+                if (!booking.end().isAfter(cursor)) {
+                    continue;
+                }
+
+                addSlot(cursor, booking.start(), minDuration, slots);
+                cursor = booking.end();
+            }
+
+            addSlot(cursor, to, minDuration, slots);
+        }
+
+        private static void addSlot(LocalDateTime start, LocalDateTime end, Duration minDuration,
+                                    List<TimeSlotResponse> slots) {
+            if (Duration.between(start, end).compareTo(minDuration) >= 0) {
+                slots.add(TimeSlotResponse.builder().start(start).end(end).build());
+            }
+        }
+    }
+
+    private record Window(LocalTime start, LocalTime end) {
+    }
+
+    /**
+     * Working hours parsed from the {@code availableTime} JSONB of a provider profile, e.g.
+     * {@code {"monday": "08:00-12:00,13:00-17:00", "TUE": [{"start": "08:00", "end": "17:00"}]}}.
+     * A provider without a profile or without usable hours is considered available all day, since
+     * {@link BookingService#createBooking} does not restrict bookings to them either.
+     */
+    private record WeeklyHours(Map<DayOfWeek, List<Window>> windows, boolean allDay) {
+        static final WeeklyHours ALL_DAY = new WeeklyHours(Map.of(), true);
+
+        private static final List<Window> FULL_DAY = List.of(new Window(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT));
+
+        List<Window> windows(DayOfWeek day) {
+            return allDay ? FULL_DAY : windows.getOrDefault(day, List.of());
+        }
+
+        static WeeklyHours parse(Map<String, Object> availableTime) {
+            if (availableTime == null || availableTime.isEmpty()) {
+                return ALL_DAY;
+            }
+
+            Map<DayOfWeek, List<Window>> windows = new EnumMap<>(DayOfWeek.class);
+            availableTime.forEach((key, value) -> {
+                DayOfWeek day = parseDay(key);
+                if (day != null) {
+                    List<Window> dayWindows = new ArrayList<>();
+                    parseWindows(value, dayWindows);
+                    if (!dayWindows.isEmpty()) {
+                        windows.computeIfAbsent(day, d -> new ArrayList<>()).addAll(dayWindows);
+                    }
+                }
+            });
+
+            return windows.isEmpty() ? ALL_DAY : new WeeklyHours(windows, false);
+        }
+
+        private static DayOfWeek parseDay(String key) {
+            String name = key.trim().toUpperCase(Locale.ROOT);
+            if (name.length() < 3) {
+                return null;
+            }
+
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (day.name().startsWith(name)) {
+                    return day;
+                }
+            }
+            return null;
+        }
+
+        private static void parseWindows(Object value, List<Window> windows) {
+            if (value instanceof String text) {
+                for (String range : text.split(",")) {
+                    String[] bounds = range.split("-");
+                    if (bounds.length == 2) {
+                        addWindow(bounds[0], bounds[1], windows);
+                    }
+                }
+            } else if (value instanceof Collection<?> values) {
+                values.forEach(item -> parseWindows(item, windows));
+            } else if (value instanceof Map<?, ?> range) {
+                Object start = range.containsKey("start") ? range.get("start") : range.get("from");
+                Object end = range.containsKey("end") ? range.get("end") : range.get("to");
+                if (start != null && end != null) {
+                    addWindow(start.toString(), end.toString(), windows);
+                }
+            }
+        }
+
+        private static void addWindow(String start, String end, List<Window> windows) {
+            try {
+                windows.add(new Window(parseTime(start), parseTime(end)));
+            } catch (DateTimeParseException e) {
+                log.debug("Ignoring unparseable available time {}-{}", start, end);
+            }
+        }
+
+        private static LocalTime parseTime(String value) {
+            String time = value.trim();
+            return time.startsWith("24:") ? LocalTime.MIDNIGHT : LocalTime.parse(time);
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Distributed token buckets kept in Redis and updated atomically by a Lua script, so concurrent requests on any
+ * node can never over-admit. For buckets of at least {@code LEASE_DIVISOR} tokens a node leases a slice of the
+ * bucket at once and serves it locally for up to {@code lease-millis}, and a denial is remembered locally until the
+ * bucket refills, so clearly allowed and clearly denied traffic mostly skips Redis.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RateLimitService {
@@ -14,15 +27,89 @@ public class RateLimitService {
 
     private static final long RATE_LIMIT_SECONDS = 30; // 30 seconds
 
+    private static final String REDIS_RATE_LIMIT_KEY = "rate_limit";
+    private static final int LEASE_DIVISOR = 10;
+    private static final int LOCAL_BUCKETS_MAX_SIZE = 10_000;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/rate_limit_token_bucket.lua"), List.class);
+
+    @Value("${application.rate-limit.lease-millis:1000}")
+    private long leaseMillis;
+
+    private final Map<String, LocalBucket> localBuckets = new ConcurrentHashMap<>();
+
     public boolean canResendVerification(String email) {
-        ValueOperations<String, String> ops = redisTemplate.opsForValue();
-        String key = "resend_email_verification:" + email;
+        return tryAcquire("resend_email_verification:" + email, 1, Duration.ofSeconds(RATE_LIMIT_SECONDS)).allowed();
+    }
 
-        if (redisTemplate.hasKey(key)) {
-            return false;
+    /**
+     * Take one token from the bucket.
+     *
+     * @param key      Bucket key, e.g. {@code chat-send:{userId}}.
+     * @param capacity Burst size, also the number of tokens refilled per period.
+     * @param period   Time to refill an empty bucket.
+     * @return Whether the request is allowed and, when not, how long until a token is available.
+     */
+    public Decision tryAcquire(String key, int capacity, Duration period) {
+        long now = System.currentTimeMillis();
+
+        LocalBucket localBucket = localBuckets.get(key);
+        if (localBucket == null) {
+            if (localBuckets.size() >= LOCAL_BUCKETS_MAX_SIZE) {
+                localBuckets.clear();
+            }
+            localBucket = localBuckets.computeIfAbsent(key, k -> new LocalBucket());
+        }
+
+        synchronized (localBucket) {
+            if (now < localBucket.deniedUntil) {
+                return Decision.denied(localBucket.deniedUntil - now);
+            }
+            if (localBucket.tokens > 0 && now < localBucket.leaseExpiresAt) {
+                localBucket.tokens--;
+                return Decision.ALLOWED;
+            }
         }
 
-        ops.set(key, "1", Duration.ofSeconds(RATE_LIMIT_SECONDS));
-        return true;
+        int lease = Math.max(1, capacity / LEASE_DIVISOR);
+        long granted;
+        long retryAfter;
+        try {
+            List<?> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                    List.of(REDIS_RATE_LIMIT_KEY + ":" + key),
+                    String.valueOf(capacity), String.valueOf(period.toMillis()), String.valueOf(lease));
+            granted = ((Number) result.get(0)).longValue();
+            retryAfter = ((Number) result.get(1)).longValue();
+        } catch (Exception e) {
+            // Fail open, an unavailable Redis must not take every rate limited endpoint down with it
+            log.error("Error applying rate limit {}: {}", key, e.getMessage(), e);
+            return Decision.ALLOWED;
+        }
+
+        synchronized (localBucket) {
+            if (granted == 0) {
+                localBucket.deniedUntil = now + retryAfter;
+                return Decision.denied(retryAfter);
+            }
+            localBucket.tokens = granted - 1;
+            localBucket.leaseExpiresAt = now + leaseMillis;
+            return Decision.ALLOWED;
+        }
+    }
+
+    public record Decision(boolean allowed, long retryAfterMillis) {
+        static final Decision ALLOWED = new Decision(true, 0);
+
+        static Decision denied(long retryAfterMillis) {
+            return new Decision(false, retryAfterMillis);
+        }
+    }
+
+    private static final class LocalBucket {
+        private long tokens;
+        private long leaseExpiresAt;
+        private long deniedUntil;
     }
 }
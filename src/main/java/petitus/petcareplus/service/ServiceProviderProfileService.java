@@ -1,10 +1,12 @@
 package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import petitus.petcareplus.dto.request.profile.ServiceProviderProfileRequest;
+import petitus.petcareplus.event.ProviderScheduleChangedEvent;
 import petitus.petcareplus.exceptions.DataExistedException;
 import petitus.petcareplus.model.spec.ServiceProviderProfileFilterSpecification;
 import petitus.petcareplus.model.spec.criteria.PaginationCriteria;
@@ -30,6 +32,7 @@ public class ServiceProviderProfileService {
     private final UserService userService;
     private final RoleService roleService;
     private final MessageSourceService messageSourceService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Page<ServiceProviderProfile> findAll(ServiceProviderProfileCriteria criteria, PaginationCriteria paginationCriteria) {
         return serviceProviderProfileRepository.findAll(new ServiceProviderProfileFilterSpecification(criteria),
@@ -111,6 +114,8 @@ public class ServiceProviderProfileService {
         
         // Save the profile first (which will cascade to service provider profile)
         profileRepository.save(existingProfile);
+
+        eventPublisher.publishEvent(new ProviderScheduleChangedEvent(user.getId()));
     }
 
     @Transactional
@@ -139,5 +144,7 @@ public class ServiceProviderProfileService {
 
         // Save the service provider profile
         serviceProviderProfileRepository.save(existingServiceProviderProfile);
+
+        eventPublisher.publishEvent(new ProviderScheduleChangedEvent(user.getId()));
     }
 } 
@@ -28,6 +28,7 @@ import petitus.petcareplus.utils.Constants;
 import petitus.petcareplus.model.spec.criteria.PaginationCriteria;
 import petitus.petcareplus.model.spec.criteria.UserCriteria;
 import petitus.petcareplus.repository.UserRepository;
+import petitus.petcareplus.security.jwt.JwtAuthenticationCache;
 import petitus.petcareplus.security.jwt.JwtUserDetails;
 import petitus.petcareplus.utils.PageRequestBuilder;
 
@@ -53,6 +54,8 @@ public class UserService implements UserDetailsService {
 
     private final RoleService roleService;
 
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(username)
@@ -139,6 +142,7 @@ public class UserService implements UserDetailsService {
         }
 
         userRepository.save(user);
+        jwtAuthenticationCache.revokeUser(user.getId());
 
         if (isRequiredEmailVerification) {
             emailVerificationEventPublisher(user);
@@ -2,19 +2,28 @@ package petitus.petcareplus.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 import petitus.petcareplus.dto.request.chat.ReadReceiptRequest;
 import petitus.petcareplus.dto.request.chat.TypingEvent;
 import petitus.petcareplus.dto.response.chat.ChatMessageResponse;
+import petitus.petcareplus.dto.response.chat.OnlineUsersSnapshotResponse;
 import petitus.petcareplus.dto.response.chat.ReadReceiptResponse;
 import petitus.petcareplus.dto.response.chat.UserPresenceResponse;
+import petitus.petcareplus.dto.response.notification.NotificationReplayResponse;
+import petitus.petcareplus.dto.response.notification.NotificationResponse;
 import petitus.petcareplus.event.ImageUploadCompletedEvent;
 import petitus.petcareplus.event.ImageUploadErrorEvent;
+import petitus.petcareplus.event.ImageUploadPendingEvent;
+import petitus.petcareplus.event.NotificationCreatedEvent;
 
 import java.util.List;
 import java.util.Map;
@@ -27,11 +36,20 @@ public class WebSocketService {
 
     private static final String USER_DESTINATION_PREFIX = "/user/";
 
+    private static final String LEGACY_INITIAL_ONLINE_USERS_DESTINATION = "/user/queue/initial-online-users";
+
     private final SimpMessagingTemplate messagingTemplate;
     @Lazy
     private final ChatService chatService;
     private final ActiveChatService activeChatService;
     private final OnlineUserService onlineUserService;
+    private final SimpUserRegistry simpUserRegistry;
+
+    /**
+     * Deprecated one frame per online partner to every user, not only to the ones still subscribed to it.
+     */
+    @Value("${application.websocket.legacy-initial-online-users:false}")
+    private boolean legacyInitialOnlineUsers;
 
     public void sendMessage(ChatMessageResponse chatMessageResponse) {
         String messageDestination = USER_DESTINATION_PREFIX + chatMessageResponse.getRecipientId() + "/queue/messages";
@@ -126,11 +144,14 @@ public class WebSocketService {
             // Delegate online status management to OnlineUserService
             onlineUserService.handleUserPresence(userId, isOnline);
 
+            // Load the partners once for both the snapshot and the fan-out
+            List<String> conversationPartnerIds = chatService.getConversationPartnerIds(userId);
+
             if (isOnline) {
-                sendConversationPartnersStatus(userId);
+                sendConversationPartnersStatus(userId, conversationPartnerIds);
             }
 
-            notifyConversationPartners(userId, isOnline);
+            notifyConversationPartners(userId, isOnline, conversationPartnerIds);
 
         } catch (Exception e) {
             log.error("Error handling user presence: {}", e.getMessage(), e);
@@ -141,14 +162,24 @@ public class WebSocketService {
      * Send online status of conversation partners to a newly connected user
      */
     public void sendConversationPartnersStatus(UUID userId) {
-        try {
-            List<String> conversationPartnerIds = chatService.getConversationPartnerIds(userId);
+        sendConversationPartnersStatus(userId, chatService.getConversationPartnerIds(userId));
+    }
 
-            for (String partnerId : conversationPartnerIds) {
-                if (onlineUserService.isUserOnline(partnerId)) {
-                    UserPresenceResponse presenceUpdate = new UserPresenceResponse(partnerId, true);
-                    String destination = USER_DESTINATION_PREFIX + userId + "/queue/initial-online-users";
-                    messagingTemplate.convertAndSend(destination, presenceUpdate);
+    private void sendConversationPartnersStatus(UUID userId, List<String> conversationPartnerIds) {
+        try {
+            List<String> onlinePartnerIds = onlineUserService.findOnlineUsers(conversationPartnerIds);
+
+            // One frame with the whole list, deltas follow on /queue/user-status
+            OnlineUsersSnapshotResponse snapshot = new OnlineUsersSnapshotResponse(
+                    onlinePartnerIds,
+                    System.currentTimeMillis());
+            String destination = USER_DESTINATION_PREFIX + userId + "/queue/online-users-snapshot";
+            messagingTemplate.convertAndSend(destination, snapshot);
+
+            if (wantsLegacyInitialOnlineUsers(userId)) {
+                String legacyDestination = USER_DESTINATION_PREFIX + userId + "/queue/initial-online-users";
+                for (String partnerId : onlinePartnerIds) {
+                    messagingTemplate.convertAndSend(legacyDestination, new UserPresenceResponse(partnerId, true));
                 }
             }
 
@@ -157,13 +188,29 @@ public class WebSocketService {
         }
     }
 
+    /**
+     * Whether one of the user's sessions on this node still subscribes to the per-partner frames
+     */
+    private boolean wantsLegacyInitialOnlineUsers(UUID userId) {
+        if (legacyInitialOnlineUsers) {
+            return true;
+        }
+
+        SimpUser user = simpUserRegistry.getUser(userId.toString());
+        return user != null && user.getSessions().stream()
+                .flatMap(session -> session.getSubscriptions().stream())
+                .anyMatch(subscription -> LEGACY_INITIAL_ONLINE_USERS_DESTINATION.equals(subscription.getDestination()));
+    }
+
     /**
      * Notify only users who have conversations with the specified user about their presence change
      */
     public void notifyConversationPartners(UUID userId, boolean isOnline) {
-        try {
-            List<String> conversationPartnerIds = chatService.getConversationPartnerIds(userId);
+        notifyConversationPartners(userId, isOnline, chatService.getConversationPartnerIds(userId));
+    }
 
+    private void notifyConversationPartners(UUID userId, boolean isOnline, List<String> conversationPartnerIds) {
+        try {
             UserPresenceResponse presenceUpdate = new UserPresenceResponse(userId.toString(), isOnline);
             for (String partnerId : conversationPartnerIds) {
                 String destination = USER_DESTINATION_PREFIX + partnerId + "/queue/user-status";
@@ -233,6 +280,70 @@ public class WebSocketService {
         }
     }
 
+    /**
+     * Send chat message error to the sender
+     */
+    public void sendMessageError(UUID userId, String errorMessage) {
+        try {
+            Map<String, Object> errorResponse = Map.of(
+                    "error", "Message not sent",
+                    "message", errorMessage,
+                    "timestamp", System.currentTimeMillis()
+            );
+
+            String destination = USER_DESTINATION_PREFIX + userId + "/queue/message-error";
+            messagingTemplate.convertAndSend(destination, errorResponse);
+
+        } catch (Exception e) {
+            log.error("Error sending message error: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Push a new or updated notification to its recipient
+     */
+    public void sendNotification(NotificationResponse notification) {
+        try {
+            String destination = USER_DESTINATION_PREFIX + notification.getUserIdReceive() + "/queue/notifications";
+            messagingTemplate.convertAndSend(destination, notification);
+
+        } catch (Exception e) {
+            log.error("Error sending notification {}: {}", notification.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send a notification catch-up batch to a reconnecting user
+     */
+    public void sendNotificationReplay(UUID userId, NotificationReplayResponse replay) {
+        try {
+            messagingTemplate.convertAndSend(USER_DESTINATION_PREFIX + userId + "/queue/notifications-replay", replay);
+
+        } catch (Exception e) {
+            log.error("Error sending notification replay to user {}: {}", userId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tell the user a STOMP message was dropped by a rate limit
+     */
+    public void sendRateLimitError(UUID userId, String destination, long retryAfterMillis) {
+        try {
+            Map<String, Object> errorResponse = Map.of(
+                    "error", "Too many requests",
+                    "destination", destination,
+                    "retryAfterMillis", retryAfterMillis,
+                    "timestamp", System.currentTimeMillis()
+            );
+
+            messagingTemplate.convertAndSend(USER_DESTINATION_PREFIX + userId + "/queue/rate-limit-error",
+                    errorResponse);
+
+        } catch (Exception e) {
+            log.error("Error sending rate limit error: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Notify about image deletion
      */
@@ -273,6 +384,11 @@ public class WebSocketService {
         }
     }
 
+    @EventListener
+    public void handleImageUploadPending(ImageUploadPendingEvent event) {
+        sendImageMessage(event.getImageUploadResponse());
+    }
+
     @EventListener
     public void handleImageUploadCompleted(ImageUploadCompletedEvent event) {
         sendImageUploadCompleted(event.getImageUploadResponse());
@@ -283,6 +399,14 @@ public class WebSocketService {
         sendImageUploadError(event.getUserId(), event.getErrorMessage());
     }
 
+    /**
+     * Push notifications once committed, so a replay right after the push sees them too
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleNotificationCreated(NotificationCreatedEvent event) {
+        sendNotification(event.getNotification());
+    }
+
     @EventListener
     public void handleSessionDisconnect(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -1,10 +1,14 @@
 package petitus.petcareplus.utils;
 
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Base64;
 
@@ -13,6 +17,24 @@ public final class AESCipher {
 
     private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
 
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /**
+     * Prefix of AES-GCM envelopes. Legacy ECB cipher texts are plain Base64 and can never contain ':'.
+     */
+    public static final String GCM_ENVELOPE_PREFIX = "v2:";
+
+    private static final int GCM_IV_LENGTH = 12;
+
+    private static final int GCM_TAG_LENGTH_BITS = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Cipher instances are not thread safe but are expensive to look up, keep one per thread and re-init it
+    private static final ThreadLocal<Cipher> ECB_CIPHER = ThreadLocal.withInitial(() -> newCipher(TRANSFORMATION));
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(() -> newCipher(GCM_TRANSFORMATION));
+
     private AESCipher() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated!");
     }
@@ -25,12 +47,7 @@ public final class AESCipher {
      * @return Base64 encoded string of the encrypted text.
      */
     public static String encrypt(String plainText, String secretKey) throws Exception {
-        SecretKeySpec keySpec = generateKey(secretKey);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, keySpec);
-        byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
-
-        return Base64.getEncoder().encodeToString(encryptedBytes);
+        return encryptLegacy(plainText, deriveKey(secretKey));
     }
 
     /**
@@ -41,11 +58,54 @@ public final class AESCipher {
      * @return String decrypted text.
      */
     public static String decrypt(String encryptedText, String secretKey) throws Exception {
-        SecretKeySpec keySpec = generateKey(secretKey);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, keySpec);
-        byte[] encryptedBytes = Base64.getDecoder().decode(encryptedText);
-        byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
+        return decryptLegacy(encryptedText, deriveKey(secretKey));
+    }
+
+    /**
+     * Encrypts plain text using AES-GCM.
+     *
+     * @param plainText The text that will be encrypted.
+     * @param key       The key that will be used for encryption.
+     * @return {@link #GCM_ENVELOPE_PREFIX} followed by Base64 of IV and cipher text with tag.
+     */
+    public static String encrypt(String plainText, SecretKeySpec key) throws GeneralSecurityException {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        RANDOM.nextBytes(iv);
+
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, iv));
+        byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+        byte[] envelope = ByteBuffer.allocate(iv.length + encryptedBytes.length)
+                .put(iv)
+                .put(encryptedBytes)
+                .array();
+
+        return GCM_ENVELOPE_PREFIX + Base64.getEncoder().encodeToString(envelope);
+    }
+
+    /**
+     * Decrypts an AES-GCM envelope, or a legacy ECB cipher text when the text has no envelope prefix.
+     *
+     * @param encryptedText The text that will be decrypted.
+     * @param key           The key used by {@link #encrypt(String, SecretKeySpec)}.
+     * @param legacyKey     The key legacy ECB cipher texts were encrypted with.
+     * @return String decrypted text.
+     */
+    public static String decrypt(String encryptedText, SecretKeySpec key, SecretKeySpec legacyKey)
+            throws GeneralSecurityException {
+        if (!encryptedText.startsWith(GCM_ENVELOPE_PREFIX)) {
+            return decryptLegacy(encryptedText, legacyKey);
+        }
+
+        byte[] envelope = Base64.getDecoder().decode(encryptedText.substring(GCM_ENVELOPE_PREFIX.length()));
+        if (envelope.length < GCM_IV_LENGTH) {
+            throw new GeneralSecurityException("Truncated cipher text");
+        }
+
+        Cipher cipher = GCM_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_LENGTH_BITS, envelope, 0, GCM_IV_LENGTH));
+        byte[] decryptedBytes = cipher.doFinal(envelope, GCM_IV_LENGTH, envelope.length - GCM_IV_LENGTH);
 
         return new String(decryptedBytes, StandardCharsets.UTF_8);
     }
@@ -56,7 +116,7 @@ public final class AESCipher {
      * @param secretKey The key that will be used for encryption and decryption.
      * @return SecretKeySpec
      */
-    private static SecretKeySpec generateKey(String secretKey) throws NoSuchAlgorithmException {
+    public static SecretKeySpec deriveKey(String secretKey) throws NoSuchAlgorithmException {
         byte[] keyBytes;
         try {
             keyBytes = Base64.getDecoder().decode(secretKey);
@@ -69,4 +129,44 @@ public final class AESCipher {
 
         return new SecretKeySpec(keyBytes, ALGORITHM);
     }
+
+    /**
+     * Derives a 256 bit key bound to a context, so the same secret yields unrelated keys for different uses.
+     *
+     * @param keyMaterial The secret the key is derived from.
+     * @param context     Label of the key usage.
+     * @return SecretKeySpec
+     */
+    public static SecretKeySpec deriveKey(byte[] keyMaterial, String context) throws NoSuchAlgorithmException {
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        sha.update(context.getBytes(StandardCharsets.UTF_8));
+        sha.update(keyMaterial);
+
+        return new SecretKeySpec(sha.digest(), ALGORITHM);
+    }
+
+    private static String encryptLegacy(String plainText, SecretKeySpec keySpec) throws GeneralSecurityException {
+        Cipher cipher = ECB_CIPHER.get();
+        cipher.init(Cipher.ENCRYPT_MODE, keySpec);
+        byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+        return Base64.getEncoder().encodeToString(encryptedBytes);
+    }
+
+    private static String decryptLegacy(String encryptedText, SecretKeySpec keySpec) throws GeneralSecurityException {
+        Cipher cipher = ECB_CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, keySpec);
+        byte[] encryptedBytes = Base64.getDecoder().decode(encryptedText);
+        byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
+
+        return new String(decryptedBytes, StandardCharsets.UTF_8);
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(transformation + " is not available", e);
+        }
+    }
 }
\ No newline at end of file
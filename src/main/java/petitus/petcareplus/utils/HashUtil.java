@@ -0,0 +1,29 @@
+package petitus.petcareplus.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class HashUtil {
+    private static final String SHA_256 = "SHA-256";
+
+    private HashUtil() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated!");
+    }
+
+    /**
+     * Hashes the given value with SHA-256.
+     *
+     * @param value The value that will be hashed.
+     * @return Lowercase hex encoded digest.
+     */
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(SHA_256);
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
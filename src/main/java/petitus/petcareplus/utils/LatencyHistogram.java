@@ -0,0 +1,80 @@
+package petitus.petcareplus.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets. Percentiles are reported as the upper bound
+ * of the bucket they fall in, which is precise enough to tell which stage of a pipeline the time goes to.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final String name;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records the time elapsed since the given {@link System#nanoTime()} value.
+     *
+     * @param startNanos Start of the measured interval.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        max.accumulate(micros);
+    }
+
+    /**
+     * Summarizes the samples recorded since the previous call and starts a new window.
+     *
+     * @return One line summary, e.g. {@code persist n=120 p50<=2ms p95<=8ms p99<=16ms max=11ms}.
+     */
+    public String drainSummary() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.getAndSet(i, 0);
+            total += snapshot[i];
+        }
+        long maxMicros = max.getThenReset();
+
+        if (total == 0) {
+            return name + " n=0";
+        }
+
+        return String.format("%s n=%d p50<=%s p95<=%s p99<=%s max=%s", name, total,
+                format(percentile(snapshot, total, 0.50)),
+                format(percentile(snapshot, total, 0.95)),
+                format(percentile(snapshot, total, 0.99)),
+                format(maxMicros));
+    }
+
+    private static long percentile(long[] snapshot, long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    private static String format(long micros) {
+        return micros >= 1000 ? (micros / 1000) + "ms" : micros + "us";
+    }
+}
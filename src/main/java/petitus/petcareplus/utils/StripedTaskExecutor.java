@@ -0,0 +1,39 @@
+package petitus.petcareplus.utils;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Single-threaded executors selected by key, so tasks of the same key run one at a time in submission order while
+ * different keys run in parallel.
+ */
+public final class StripedTaskExecutor implements DisposableBean {
+    private final List<ThreadPoolTaskExecutor> stripes;
+
+    /**
+     * @param stripes       Number of stripes.
+     * @param stripeFactory Creates the executor of each stripe, it must have a single thread.
+     */
+    public StripedTaskExecutor(int stripes, IntFunction<ThreadPoolTaskExecutor> stripeFactory) {
+        this.stripes = IntStream.range(0, stripes)
+                .mapToObj(stripe -> {
+                    ThreadPoolTaskExecutor executor = stripeFactory.apply(stripe);
+                    executor.initialize();
+                    return executor;
+                })
+                .toList();
+    }
+
+    public void execute(int key, Runnable task) {
+        stripes.get(Math.floorMod(key, stripes.size())).execute(task);
+    }
+
+    @Override
+    public void destroy() {
+        stripes.forEach(ThreadPoolTaskExecutor::destroy);
+    }
+}
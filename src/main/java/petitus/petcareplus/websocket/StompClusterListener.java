@@ -0,0 +1,56 @@
+package petitus.petcareplus.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+/**
+ * Delivers messages relayed by {@link StompClusterRelay} on other nodes to the sessions connected to this node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.websocket.broker", havingValue = "redis")
+public class StompClusterListener implements MessageListener {
+    private final StompClusterRelay stompClusterRelay;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onMessage(@NonNull final Message message, final byte[] pattern) {
+        try {
+            StompClusterRelay.ClusterMessage clusterMessage = objectMapper.readValue(
+                    message.getBody(), StompClusterRelay.ClusterMessage.class);
+
+            // Our own broadcast coming back
+            if (stompClusterRelay.getNodeId().equals(clusterMessage.origin())) {
+                return;
+            }
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(clusterMessage.destination());
+            if (clusterMessage.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(clusterMessage.contentType()));
+            }
+            accessor.setHeader(StompClusterRelay.RELAYED_HEADER, true);
+            accessor.setLeaveMutable(true);
+
+            messagingTemplate.send(clusterMessage.destination(),
+                    MessageBuilder.createMessage(clusterMessage.payload(), accessor.getMessageHeaders()));
+        } catch (Exception e) {
+            log.error("Error delivering relayed cluster message: {}", e.getMessage(), e);
+        }
+    }
+}
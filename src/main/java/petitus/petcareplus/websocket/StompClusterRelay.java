@@ -0,0 +1,174 @@
+package petitus.petcareplus.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broker channel interceptor that makes the in-memory STOMP broker cluster wide. Every node keeps a registry of
+ * its own user sessions and advertises itself in Redis as hosting those users; a message to
+ * {@code /user/{id}/...} is republished to each other node hosting that user, any other broker destination is
+ * republished to every node. The receiving side is {@link StompClusterListener}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "application.websocket.broker", havingValue = "redis")
+public class StompClusterRelay implements ChannelInterceptor {
+    public static final String BROADCAST_CHANNEL = "ws:broadcast";
+
+    /**
+     * Set on messages re-injected from another node so they are not relayed again.
+     */
+    public static final String RELAYED_HEADER = "clusterRelayed";
+
+    private static final String NODE_CHANNEL_PREFIX = "ws:node:";
+
+    private static final String USER_NODES_KEY_PREFIX = "ws:user_nodes:";
+
+    private static final String USER_DESTINATION_PREFIX = "/user/";
+
+    // Bounds how long a crashed node stays advertised for a user
+    private static final Duration USER_NODES_TTL = Duration.ofHours(24);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Local sessions per user id.
+     */
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+
+    public String getNodeChannel() {
+        return NODE_CHANNEL_PREFIX + nodeId;
+    }
+
+    @EventListener
+    public void handleSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) {
+            return;
+        }
+
+        localSessions.computeIfAbsent(user.getName(), key -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        try {
+            String key = USER_NODES_KEY_PREFIX + user.getName();
+            redisTemplate.opsForSet().add(key, nodeId);
+            redisTemplate.expire(key, USER_NODES_TTL);
+        } catch (Exception e) {
+            log.error("Error registering session of user {} on node {}: {}", user.getName(), nodeId, e.getMessage(), e);
+        }
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+
+        Set<String> sessions = localSessions.computeIfPresent(user.getName(), (key, current) -> {
+            current.remove(event.getSessionId());
+            return current.isEmpty() ? null : current;
+        });
+        if (sessions == null) {
+            unregister(user.getName());
+        }
+    }
+
+    @PreDestroy
+    public void unregisterAll() {
+        localSessions.keySet().forEach(this::unregister);
+        localSessions.clear();
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+        // Only relay what the application sends, not what the user destination resolver already fanned out
+        if (!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(headers))
+                || destination == null
+                || headers.containsKey(RELAYED_HEADER)
+                || headers.containsKey(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        try {
+            Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+            String body = objectMapper.writeValueAsString(new ClusterMessage(
+                    nodeId,
+                    destination,
+                    contentType != null ? contentType.toString() : null,
+                    payload));
+
+            if (!destination.startsWith(USER_DESTINATION_PREFIX)) {
+                redisTemplate.convertAndSend(BROADCAST_CHANNEL, body);
+                return message;
+            }
+
+            Set<String> nodes = redisTemplate.opsForSet().members(USER_NODES_KEY_PREFIX + extractUserId(destination));
+            if (nodes != null) {
+                for (String node : nodes) {
+                    if (!nodeId.equals(node)) {
+                        redisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + node, body);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error relaying message to {} across nodes: {}", destination, e.getMessage(), e);
+        }
+
+        return message;
+    }
+
+    private void unregister(String userId) {
+        try {
+            redisTemplate.opsForSet().remove(USER_NODES_KEY_PREFIX + userId, nodeId);
+        } catch (Exception e) {
+            log.error("Error unregistering user {} from node {}: {}", userId, nodeId, e.getMessage(), e);
+        }
+    }
+
+    private static String extractUserId(String destination) {
+        int end = destination.indexOf('/', USER_DESTINATION_PREFIX.length());
+        return end < 0
+                ? destination.substring(USER_DESTINATION_PREFIX.length())
+                : destination.substring(USER_DESTINATION_PREFIX.length(), end);
+    }
+
+    /**
+     * Message as published on the cluster channels.
+     */
+    public record ClusterMessage(String origin, String destination, String contentType, byte[] payload) {
+    }
+}
@@ -0,0 +1,4 @@
+-- Index for the provider availability check, only active bookings can block a slot
+CREATE INDEX IF NOT EXISTS idx_bookings_provider_active_schedule
+ON bookings(provider_id, scheduled_start_time, scheduled_end_time)
+WHERE deleted_at IS NULL AND status NOT IN ('CANCELLED', 'COMPLETED');
@@ -0,0 +1,39 @@
+-- One inbox row per (user, partner), maintained on message send and read
+CREATE TABLE IF NOT EXISTS conversations (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    partner_id UUID NOT NULL,
+    last_message_id UUID NOT NULL,
+    last_message_at TIMESTAMP NOT NULL,
+    last_sender_id UUID NOT NULL,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    deleted_at TIMESTAMP,
+    CONSTRAINT uk_conversations_user_partner UNIQUE (user_id, partner_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_conversations_user_last_message
+ON conversations(user_id, last_message_at);
+
+-- Backfill from the existing message history
+INSERT INTO conversations (id, user_id, partner_id, last_message_id, last_message_at, last_sender_id,
+                           unread_count, created_at, updated_at)
+SELECT gen_random_uuid(), pairs.user_id, pairs.partner_id, latest.id, latest.created_at, latest.sender_id,
+       (SELECT COUNT(*) FROM chat_messages u
+        WHERE u.recipient_id = pairs.user_id AND u.sender_id = pairs.partner_id AND u.is_read = false),
+       CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+FROM (
+    SELECT sender_id AS user_id, recipient_id AS partner_id FROM chat_messages
+    UNION
+    SELECT recipient_id AS user_id, sender_id AS partner_id FROM chat_messages
+) pairs
+CROSS JOIN LATERAL (
+    SELECT m.id, m.created_at, m.sender_id
+    FROM chat_messages m
+    WHERE (m.sender_id = pairs.user_id AND m.recipient_id = pairs.partner_id)
+       OR (m.sender_id = pairs.partner_id AND m.recipient_id = pairs.user_id)
+    ORDER BY m.created_at DESC
+    LIMIT 1
+) latest
+ON CONFLICT (user_id, partner_id) DO NOTHING;
@@ -0,0 +1,4 @@
+-- Unread badge sums only the conversations that still have unread messages
+CREATE INDEX IF NOT EXISTS idx_conversations_user_unread
+ON conversations(user_id) INCLUDE (unread_count)
+WHERE unread_count > 0;
@@ -0,0 +1,6 @@
+-- Chat notifications are collapsed into one live row per (recipient, sender) carrying the unread message count
+ALTER TABLE notification ADD COLUMN IF NOT EXISTS aggregate_count INTEGER NOT NULL DEFAULT 1;
+
+CREATE INDEX IF NOT EXISTS idx_notification_live_chat
+ON notification(user_id_receive, user_id_send)
+WHERE type = 'CHAT' AND is_read = false AND deleted_at IS NULL;
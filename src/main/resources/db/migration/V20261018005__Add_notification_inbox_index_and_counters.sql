@@ -0,0 +1,16 @@
+-- Keyset pagination of the inbox walks (created_at, id) backwards per recipient
+CREATE INDEX IF NOT EXISTS idx_notification_inbox
+ON notification(user_id_receive, created_at DESC, id DESC);
+
+-- Unread badge per user, kept up to date by every notification write
+CREATE TABLE IF NOT EXISTS notification_counters (
+    user_id UUID PRIMARY KEY,
+    unread_count BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO notification_counters (user_id, unread_count)
+SELECT user_id_receive, COUNT(*)
+FROM notification
+WHERE is_read = false AND deleted_at IS NULL
+GROUP BY user_id_receive
+ON CONFLICT (user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count;
@@ -0,0 +1,139 @@
+-- Monthly range partitions on created_at for chat messages. Recent months are partitions of chat_messages,
+-- months older than the hot window are moved to chat_messages_archive, which keeps only the conversation index.
+-- Partitions are named chat_messages_pYYYYMM and chat_messages_archive_pYYYYMM, both parents share one column
+-- layout so history reads can walk from one tier into the other.
+
+-- Create the missing monthly partitions of chat_messages between two months, both included. Rows that landed in
+-- the default partition for such a month are moved into the new partition.
+CREATE OR REPLACE FUNCTION ensure_chat_message_partitions(from_month DATE, to_month DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month)::DATE;
+    month_end DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start <= to_month LOOP
+        month_end := (month_start + INTERVAL '1 month')::DATE;
+        partition_name := 'chat_messages_p' || to_char(month_start, 'YYYYMM');
+
+        IF to_regclass(partition_name) IS NULL
+                AND to_regclass('chat_messages_archive_p' || to_char(month_start, 'YYYYMM')) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE chat_messages INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                           partition_name);
+            EXECUTE format('WITH moved AS (DELETE FROM chat_messages_default '
+                           'WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', month_start, month_end, partition_name);
+            EXECUTE format('ALTER TABLE chat_messages ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        END IF;
+
+        month_start := month_end;
+    END LOOP;
+
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Move the hot partitions of months ending on or before hot_from to the archive and drop the indexes the archive
+-- does not keep. Detach and attach only rewrite the catalog, the rows stay where they are.
+CREATE OR REPLACE FUNCTION archive_chat_message_partitions(hot_from DATE)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    partition_name TEXT;
+    archive_name TEXT;
+    month_start DATE;
+    missing RECORD;
+    stale_index TEXT;
+BEGIN
+    -- One archiver at a time across nodes, the others skip the run
+    IF NOT pg_try_advisory_xact_lock(hashtext('archive_chat_message_partitions')) THEN
+        RETURN;
+    END IF;
+
+    -- Columns added to chat_messages by schema updates since the last run, in the same order
+    FOR missing IN
+        SELECT a.attname, format_type(a.atttypid, a.atttypmod) AS column_type
+        FROM pg_attribute a
+        WHERE a.attrelid = 'chat_messages'::regclass AND a.attnum > 0 AND NOT a.attisdropped
+          AND NOT EXISTS (SELECT 1 FROM pg_attribute b
+                          WHERE b.attrelid = 'chat_messages_archive'::regclass
+                            AND b.attname = a.attname AND NOT b.attisdropped)
+        ORDER BY a.attnum
+    LOOP
+        EXECUTE format('ALTER TABLE chat_messages_archive ADD COLUMN %I %s', missing.attname, missing.column_type);
+    END LOOP;
+
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'chat_messages'::regclass AND c.relname ~ '^chat_messages_p[0-9]{6}$'
+        ORDER BY c.relname
+    LOOP
+        month_start := to_date(substring(partition_name FROM 16), 'YYYYMM');
+        CONTINUE WHEN (month_start + INTERVAL '1 month')::DATE > hot_from;
+        archive_name := 'chat_messages_archive_p' || to_char(month_start, 'YYYYMM');
+
+        EXECUTE format('ALTER TABLE chat_messages DETACH PARTITION %I', partition_name);
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, archive_name);
+        EXECUTE format('ALTER TABLE chat_messages_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       archive_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+
+        -- Indexes left unattached are the hot tier's read and type indexes
+        FOR stale_index IN
+            SELECT x.indexrelid::regclass::TEXT
+            FROM pg_index x
+            WHERE x.indrelid = archive_name::regclass
+              AND NOT EXISTS (SELECT 1 FROM pg_inherits h WHERE h.inhrelid = x.indexrelid)
+        LOOP
+            EXECUTE 'DROP INDEX ' || stale_index;
+        END LOOP;
+
+        RETURN NEXT archive_name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Convert the plain table created by Hibernate and copy the history into the partitions
+DO $$
+DECLARE
+    first_month DATE;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('chat_messages')) IS DISTINCT FROM 'r' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE chat_messages RENAME TO chat_messages_unpartitioned;
+    DROP INDEX IF EXISTS idx_chat_messages_sender_recipient;
+    DROP INDEX IF EXISTS idx_chat_messages_recipient_read;
+    DROP INDEX IF EXISTS idx_chat_messages_created_at;
+    DROP INDEX IF EXISTS idx_chat_messages_message_type;
+    EXECUTE format('ALTER TABLE chat_messages_unpartitioned DROP CONSTRAINT %I',
+                   (SELECT conname FROM pg_constraint
+                    WHERE conrelid = 'chat_messages_unpartitioned'::regclass AND contype = 'p'));
+
+    -- The partition key has to be part of the primary key
+    CREATE TABLE chat_messages (LIKE chat_messages_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+    ALTER TABLE chat_messages ADD PRIMARY KEY (id, created_at);
+    CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+
+    CREATE INDEX idx_chat_messages_conversation ON chat_messages(sender_id, recipient_id, created_at DESC);
+    CREATE INDEX idx_chat_messages_recipient_read ON chat_messages(recipient_id, is_read);
+    CREATE INDEX idx_chat_messages_message_type ON chat_messages(message_type);
+
+    CREATE TABLE chat_messages_archive (LIKE chat_messages_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+    ALTER TABLE chat_messages_archive ADD PRIMARY KEY (id, created_at);
+    CREATE INDEX idx_chat_messages_archive_conversation
+    ON chat_messages_archive(sender_id, recipient_id, created_at DESC);
+
+    SELECT date_trunc('month', MIN(created_at))::DATE INTO first_month FROM chat_messages_unpartitioned;
+    PERFORM ensure_chat_message_partitions(COALESCE(first_month, CURRENT_DATE),
+                                           (CURRENT_DATE + INTERVAL '3 months')::DATE);
+
+    INSERT INTO chat_messages SELECT * FROM chat_messages_unpartitioned;
+    DROP TABLE chat_messages_unpartitioned;
+END $$;
@@ -0,0 +1,11 @@
+-- created_at stays the creation time, collapsed chat notifications are resurfaced through updated_at instead
+ALTER TABLE notification ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP(6);
+
+UPDATE notification
+SET updated_at = created_at
+WHERE updated_at IS NULL;
+
+-- Keyset pagination of the inbox walks (updated_at, id) backwards per recipient
+DROP INDEX IF EXISTS idx_notification_inbox;
+CREATE INDEX idx_notification_inbox
+ON notification(user_id_receive, updated_at DESC, id DESC);
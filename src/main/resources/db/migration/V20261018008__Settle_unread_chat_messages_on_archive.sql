@@ -0,0 +1,78 @@
+-- Messages still unread when their month is archived are taken off the conversation unread counters then, so
+-- marking a conversation as read only touches the hot months. The messages themselves stay unread, nobody read them.
+CREATE OR REPLACE FUNCTION archive_chat_message_partitions(hot_from DATE)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    partition_name TEXT;
+    archive_name TEXT;
+    month_start DATE;
+    missing RECORD;
+    stale_index TEXT;
+BEGIN
+    -- One archiver at a time across nodes, the others skip the run
+    IF NOT pg_try_advisory_xact_lock(hashtext('archive_chat_message_partitions')) THEN
+        RETURN;
+    END IF;
+
+    -- Columns added to chat_messages by schema updates since the last run, in the same order
+    FOR missing IN
+        SELECT a.attname, format_type(a.atttypid, a.atttypmod) AS column_type
+        FROM pg_attribute a
+        WHERE a.attrelid = 'chat_messages'::regclass AND a.attnum > 0 AND NOT a.attisdropped
+          AND NOT EXISTS (SELECT 1 FROM pg_attribute b
+                          WHERE b.attrelid = 'chat_messages_archive'::regclass
+                            AND b.attname = a.attname AND NOT b.attisdropped)
+        ORDER BY a.attnum
+    LOOP
+        EXECUTE format('ALTER TABLE chat_messages_archive ADD COLUMN %I %s', missing.attname, missing.column_type);
+    END LOOP;
+
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'chat_messages'::regclass AND c.relname ~ '^chat_messages_p[0-9]{6}$'
+        ORDER BY c.relname
+    LOOP
+        month_start := to_date(substring(partition_name FROM 16), 'YYYYMM');
+        CONTINUE WHEN (month_start + INTERVAL '1 month')::DATE > hot_from;
+        archive_name := 'chat_messages_archive_p' || to_char(month_start, 'YYYYMM');
+
+        -- Taken before the count rather than by the detach, so nothing of the month is marked read in between
+        EXECUTE format('LOCK TABLE %I IN ACCESS EXCLUSIVE MODE', partition_name);
+        EXECUTE format($settle$
+            UPDATE conversations c
+            SET unread_count = GREATEST(c.unread_count - s.unread_count, 0),
+                updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT recipient_id, sender_id, COUNT(*) AS unread_count
+                  FROM %I WHERE is_read = false GROUP BY recipient_id, sender_id) s
+            WHERE c.user_id = s.recipient_id AND c.partner_id = s.sender_id
+        $settle$, partition_name);
+
+        EXECUTE format('ALTER TABLE chat_messages DETACH PARTITION %I', partition_name);
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', partition_name, archive_name);
+        EXECUTE format('ALTER TABLE chat_messages_archive ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       archive_name, month_start, (month_start + INTERVAL '1 month')::DATE);
+
+        -- Indexes left unattached are the hot tier's read and type indexes
+        FOR stale_index IN
+            SELECT x.indexrelid::regclass::TEXT
+            FROM pg_index x
+            WHERE x.indrelid = archive_name::regclass
+              AND NOT EXISTS (SELECT 1 FROM pg_inherits h WHERE h.inhrelid = x.indexrelid)
+        LOOP
+            EXECUTE 'DROP INDEX ' || stale_index;
+        END LOOP;
+
+        RETURN NEXT archive_name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Settle what was archived before this migration
+UPDATE conversations c
+SET unread_count = GREATEST(c.unread_count - s.unread_count, 0),
+    updated_at = CURRENT_TIMESTAMP
+FROM (SELECT recipient_id, sender_id, COUNT(*) AS unread_count
+      FROM chat_messages_archive WHERE is_read = false GROUP BY recipient_id, sender_id) s
+WHERE c.user_id = s.recipient_id AND c.partner_id = s.sender_id;
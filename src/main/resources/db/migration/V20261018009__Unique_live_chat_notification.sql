@@ -0,0 +1,34 @@
+-- One live chat notification per (recipient, sender), so merges running on several nodes create it at most once.
+-- Pairs that already have several are collapsed into their most recently updated row first.
+WITH ranked AS (
+    SELECT id,
+           user_id_receive,
+           ROW_NUMBER() OVER pair AS position,
+           COUNT(*) OVER pair AS copies,
+           SUM(aggregate_count) OVER pair AS total
+    FROM notification
+    WHERE type = 'CHAT' AND is_read = false AND deleted_at IS NULL
+    WINDOW pair AS (PARTITION BY user_id_receive, user_id_send ORDER BY updated_at DESC, id DESC
+                    ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING)
+), kept AS (
+    UPDATE notification n
+    SET aggregate_count = r.total,
+        title = r.total || ' new messages'
+    FROM ranked r
+    WHERE n.id = r.id AND r.position = 1 AND r.copies > 1
+), removed AS (
+    UPDATE notification n
+    SET deleted_at = now()
+    FROM ranked r
+    WHERE n.id = r.id AND r.position > 1
+    RETURNING n.user_id_receive
+)
+UPDATE notification_counters c
+SET unread_count = GREATEST(c.unread_count - d.removed, 0)
+FROM (SELECT user_id_receive, COUNT(*) AS removed FROM removed GROUP BY user_id_receive) d
+WHERE c.user_id = d.user_id_receive;
+
+DROP INDEX IF EXISTS idx_notification_live_chat;
+CREATE UNIQUE INDEX idx_notification_live_chat
+ON notification(user_id_receive, user_id_send)
+WHERE type = 'CHAT' AND is_read = false AND deleted_at IS NULL;
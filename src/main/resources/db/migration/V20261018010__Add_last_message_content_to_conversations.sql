@@ -0,0 +1,19 @@
+-- The inbox shows the encrypted last message from the conversation row, a last message archived with its month
+-- would otherwise drop the conversation from the inbox
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS last_message_content TEXT;
+
+UPDATE conversations c
+SET last_message_content = m.content
+FROM chat_messages m
+WHERE m.id = c.last_message_id AND c.last_message_content IS NULL;
+
+DO $$
+BEGIN
+    IF to_regclass('chat_messages_archive') IS NOT NULL THEN
+        UPDATE conversations c
+        SET last_message_content = m.content
+        FROM chat_messages_archive m
+        WHERE m.id = c.last_message_id AND c.last_message_content IS NULL;
+    END IF;
+END;
+$$;
@@ -0,0 +1,34 @@
+-- Token bucket, refilled continuously at capacity tokens per period.
+-- KEYS[1]  bucket hash {tokens, ts}
+-- ARGV[1]  capacity
+-- ARGV[2]  period in milliseconds
+-- ARGV[3]  tokens wanted, granted partially when fewer are left
+-- Returns {granted, retry after ms}, granted = 0 means the request is denied.
+local capacity = tonumber(ARGV[1])
+local period = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * capacity / period)
+
+local granted = math.min(wanted, math.floor(tokens))
+local retryAfter = 0
+if granted < 1 then
+    granted = 0
+    retryAfter = math.ceil((1 - tokens) * period / capacity)
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'ts', tostring(now))
+redis.call('PEXPIRE', KEYS[1], period)
+
+return {granted, retryAfter}
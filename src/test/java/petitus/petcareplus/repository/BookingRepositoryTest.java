@@ -0,0 +1,113 @@
+package petitus.petcareplus.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import petitus.petcareplus.model.Booking;
+import petitus.petcareplus.model.DefaultService;
+import petitus.petcareplus.model.ProviderService;
+import petitus.petcareplus.model.Role;
+import petitus.petcareplus.model.User;
+import petitus.petcareplus.utils.Constants;
+import petitus.petcareplus.utils.enums.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-repository;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BookingRepositoryTest {
+    // 10:00 to 11:00 tomorrow
+    private static final LocalDateTime START = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS)
+            .plusHours(10);
+    private static final LocalDateTime END = START.plusHours(1);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User provider;
+
+    @BeforeEach
+    void createBooking() {
+        Role role = new Role(Constants.RoleEnum.USER);
+        entityManager.persist(role);
+
+        User customer = user("customer@petcareplus.test", role);
+        provider = user("provider@petcareplus.test", role);
+
+        DefaultService walking = DefaultService.builder().name("Walking").basePrice(BigDecimal.TEN).build();
+        entityManager.persist(walking);
+        ProviderService providerService = ProviderService.builder()
+                .provider(provider)
+                .service(walking)
+                .customPrice(BigDecimal.TEN)
+                .build();
+        entityManager.persist(providerService);
+
+        entityManager.persist(Booking.builder()
+                .user(customer)
+                .provider(provider)
+                .providerService(providerService)
+                .totalPrice(BigDecimal.TEN)
+                .scheduledStartTime(START)
+                .scheduledEndTime(END)
+                .build());
+        entityManager.persist(Booking.builder()
+                .user(customer)
+                .provider(provider)
+                .providerService(providerService)
+                .totalPrice(BigDecimal.TEN)
+                .status(BookingStatus.CANCELLED)
+                .scheduledStartTime(END)
+                .scheduledEndTime(END.plusHours(1))
+                .build());
+        entityManager.flush();
+    }
+
+    @Test
+    void bookingsTouchingAnExistingOneDoNotOverlap() {
+        assertThat(countOverlapping(START.minusHours(1), START)).isZero();
+        assertThat(countOverlapping(END, END.plusHours(1))).isZero();
+    }
+
+    @Test
+    void bookingsSharingAnyTimeOverlap() {
+        assertThat(countOverlapping(START.minusMinutes(30), START.plusMinutes(30))).isEqualTo(1);
+        assertThat(countOverlapping(END.minusMinutes(30), END.plusMinutes(30))).isEqualTo(1);
+        assertThat(countOverlapping(START.plusMinutes(15), END.minusMinutes(15))).isEqualTo(1);
+        assertThat(countOverlapping(START.minusHours(1), END.plusHours(1))).isEqualTo(1);
+        assertThat(countOverlapping(START, END)).isEqualTo(1);
+    }
+
+    private long countOverlapping(LocalDateTime start, LocalDateTime end) {
+        return bookingRepository.countOverlappingBookings(provider.getId(), start, end);
+    }
+
+    private User user(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name("Name")
+                .lastName("Last")
+                .role(role)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -0,0 +1,169 @@
+package petitus.petcareplus.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import petitus.petcareplus.dto.request.booking.BookingRequest;
+import petitus.petcareplus.dto.request.booking.PetServiceBookingRequest;
+import petitus.petcareplus.exceptions.BadRequestException;
+import petitus.petcareplus.model.DefaultService;
+import petitus.petcareplus.model.Pet;
+import petitus.petcareplus.model.ProviderService;
+import petitus.petcareplus.model.Role;
+import petitus.petcareplus.model.User;
+import petitus.petcareplus.repository.BookingRepository;
+import petitus.petcareplus.utils.Constants;
+import petitus.petcareplus.utils.enums.Species;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent bookings of the same provider slot, only one may win. Needs the Postgres advisory lock, so it runs
+ * against a Postgres container and is skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BookingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceConcurrencyTest {
+    private static final int CONCURRENT_BOOKINGS = 16;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private MessageSourceService messageSourceService;
+
+    @MockitoBean
+    private WalletService walletService;
+
+    @Test
+    void onlyOneOfConcurrentBookingsForTheSameSlotSucceeds() throws Exception {
+        List<Customer> customers = new TransactionTemplate(transactionManager).execute(status -> createCustomers());
+        UUID providerServiceId = customers.get(0).providerServiceId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_BOOKINGS);
+        CountDownLatch ready = new CountDownLatch(CONCURRENT_BOOKINGS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Customer customer : customers) {
+                results.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    try {
+                        bookingService.createBooking(customer.userId(), BookingRequest.builder()
+                                .providerServiceId(providerServiceId)
+                                .scheduledStartTime(start)
+                                .scheduledEndTime(start.plusHours(1))
+                                .petList(List.of(new PetServiceBookingRequest(customer.petId())))
+                                .build());
+                        return true;
+                    } catch (BadRequestException e) {
+                        return false;
+                    }
+                }));
+            }
+
+            ready.await(10, TimeUnit.SECONDS);
+            go.countDown();
+
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(bookingRepository.count()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Customer> createCustomers() {
+        Role role = new Role(Constants.RoleEnum.USER);
+        entityManager.persist(role);
+
+        User provider = user("provider@petcareplus.test", role);
+        DefaultService walking = DefaultService.builder().name("Walking").basePrice(BigDecimal.TEN).build();
+        entityManager.persist(walking);
+        ProviderService providerService = ProviderService.builder()
+                .provider(provider)
+                .service(walking)
+                .customPrice(BigDecimal.TEN)
+                .build();
+        entityManager.persist(providerService);
+
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_BOOKINGS; i++) {
+            User customer = user("customer" + i + "@petcareplus.test", role);
+            Pet pet = Pet.builder().userId(customer.getId()).name("Pet " + i).species(Species.DOG).build();
+            entityManager.persist(pet);
+            customers.add(new Customer(customer.getId(), pet.getId(), providerService.getId()));
+        }
+
+        return customers;
+    }
+
+    private User user(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name("Name")
+                .lastName("Last")
+                .role(role)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private record Customer(UUID userId, UUID petId, UUID providerServiceId) {
+    }
+}
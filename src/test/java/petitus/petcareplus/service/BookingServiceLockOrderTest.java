@@ -0,0 +1,154 @@
+package petitus.petcareplus.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import petitus.petcareplus.dto.request.booking.BookingRequest;
+import petitus.petcareplus.dto.request.booking.PetServiceBookingRequest;
+import petitus.petcareplus.model.DefaultService;
+import petitus.petcareplus.model.Pet;
+import petitus.petcareplus.model.ProviderService;
+import petitus.petcareplus.model.Role;
+import petitus.petcareplus.model.User;
+import petitus.petcareplus.repository.BookingRepository;
+import petitus.petcareplus.utils.Constants;
+import petitus.petcareplus.utils.enums.Species;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+
+/**
+ * The advisory lock only serializes bookings when it is taken before the overlap check and held through it.
+ * {@link BookingServiceConcurrencyTest} proves the lock against Postgres, this checks the call order on H2.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-lock-order;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BookingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingServiceLockOrderTest {
+    @Autowired
+    private BookingService bookingService;
+
+    @MockitoSpyBean
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private MessageSourceService messageSourceService;
+
+    @MockitoBean
+    private WalletService walletService;
+
+    @Test
+    void providerScheduleIsLockedBeforeTheOverlapCheckInTheBookingTransaction() {
+        Customer customer = new TransactionTemplate(transactionManager).execute(status -> createCustomer());
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+
+        // The transaction each call ran in, identified by its entity manager holder
+        List<Object> transactions = new ArrayList<>();
+        // pg_advisory_xact_lock does not exist on H2, and the slot is free
+        doAnswer(invocation -> {
+            transactions.add(currentTransaction());
+            return 1L;
+        }).when(bookingRepository).lockProviderSchedule(any());
+        doAnswer(invocation -> {
+            transactions.add(currentTransaction());
+            return 0L;
+        }).when(bookingRepository).countOverlappingBookings(any(), any(), any());
+
+        bookingService.createBooking(customer.userId(), BookingRequest.builder()
+                .providerServiceId(customer.providerServiceId())
+                .scheduledStartTime(start)
+                .scheduledEndTime(start.plusHours(1))
+                .petList(List.of(new PetServiceBookingRequest(customer.petId())))
+                .build());
+
+        InOrder order = inOrder(bookingRepository);
+        order.verify(bookingRepository).lockProviderSchedule(customer.providerId());
+        order.verify(bookingRepository).countOverlappingBookings(eq(customer.providerId()), eq(start),
+                eq(start.plusHours(1)));
+        order.verify(bookingRepository).save(any());
+
+        assertThat(transactions).hasSize(2).doesNotContainNull();
+        assertThat(transactions.get(1)).isSameAs(transactions.get(0));
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+    }
+
+    private Object currentTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                ? TransactionSynchronizationManager.getResource(entityManagerFactory)
+                : null;
+    }
+
+    private Customer createCustomer() {
+        Role role = new Role(Constants.RoleEnum.USER);
+        entityManager.persist(role);
+
+        User provider = user("provider@petcareplus.test", role);
+        DefaultService walking = DefaultService.builder().name("Walking").basePrice(BigDecimal.TEN).build();
+        entityManager.persist(walking);
+        ProviderService providerService = ProviderService.builder()
+                .provider(provider)
+                .service(walking)
+                .customPrice(BigDecimal.TEN)
+                .build();
+        entityManager.persist(providerService);
+
+        User customer = user("customer@petcareplus.test", role);
+        Pet pet = Pet.builder().userId(customer.getId()).name("Pet").species(Species.DOG).build();
+        entityManager.persist(pet);
+
+        return new Customer(customer.getId(), pet.getId(), provider.getId(), providerService.getId());
+    }
+
+    private User user(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name("Name")
+                .lastName("Last")
+                .role(role)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+
+    private record Customer(UUID userId, UUID petId, UUID providerId, UUID providerServiceId) {
+    }
+}
@@ -0,0 +1,151 @@
+package petitus.petcareplus.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import petitus.petcareplus.dto.response.booking.BookingResponse;
+import petitus.petcareplus.model.Booking;
+import petitus.petcareplus.model.DefaultService;
+import petitus.petcareplus.model.Pet;
+import petitus.petcareplus.model.PetBooking;
+import petitus.petcareplus.model.PetBookingId;
+import petitus.petcareplus.model.ProviderService;
+import petitus.petcareplus.model.Role;
+import petitus.petcareplus.model.ServiceBooking;
+import petitus.petcareplus.model.ServiceBookingId;
+import petitus.petcareplus.model.User;
+import petitus.petcareplus.model.spec.criteria.PaginationCriteria;
+import petitus.petcareplus.utils.Constants;
+import petitus.petcareplus.utils.enums.Species;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Booking list pages must cost the same number of statements whatever their size.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:booking-query-count;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BookingService.class)
+class BookingServiceQueryCountTest {
+    private static final int BOOKINGS = 12;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private MessageSourceService messageSourceService;
+
+    @MockitoBean
+    private WalletService walletService;
+
+    private User customer;
+
+    @BeforeEach
+    void createBookings() {
+        Role role = new Role(Constants.RoleEnum.USER);
+        entityManager.persist(role);
+
+        customer = user("customer@petcareplus.test", role);
+        User provider = user("provider@petcareplus.test", role);
+
+        DefaultService grooming = DefaultService.builder().name("Grooming").basePrice(BigDecimal.TEN).build();
+        entityManager.persist(grooming);
+
+        ProviderService providerService = ProviderService.builder()
+                .provider(provider)
+                .service(grooming)
+                .customPrice(BigDecimal.TEN)
+                .build();
+        entityManager.persist(providerService);
+
+        for (int i = 0; i < BOOKINGS; i++) {
+            Pet pet = Pet.builder().userId(customer.getId()).name("Pet " + i).species(Species.DOG).build();
+            entityManager.persist(pet);
+
+            Booking booking = Booking.builder()
+                    .user(customer)
+                    .provider(provider)
+                    .providerService(providerService)
+                    .totalPrice(BigDecimal.TEN)
+                    .scheduledStartTime(LocalDateTime.now().plusDays(i + 1))
+                    .scheduledEndTime(LocalDateTime.now().plusDays(i + 1).plusHours(1))
+                    .build();
+            entityManager.persist(booking);
+
+            entityManager.persist(PetBooking.builder()
+                    .id(new PetBookingId(booking.getId(), pet.getId(), grooming.getId()))
+                    .booking(booking)
+                    .pet(pet)
+                    .service(grooming)
+                    .build());
+            entityManager.persist(ServiceBooking.builder()
+                    .id(new ServiceBookingId(booking.getId(), grooming.getId()))
+                    .booking(booking)
+                    .service(grooming)
+                    .price(BigDecimal.TEN)
+                    .build());
+        }
+
+        entityManager.flush();
+    }
+
+    @Test
+    void userBookingPageCostsTheSameStatementsWhateverItsSize() {
+        long smallPage = countStatements(2);
+        long fullPage = countStatements(BOOKINGS);
+
+        assertThat(smallPage).isPositive();
+        assertThat(fullPage).isEqualTo(smallPage);
+    }
+
+    private long countStatements(int pageSize) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<BookingResponse> page = bookingService.getUserBookings(customer.getId(),
+                PaginationCriteria.builder().page(1).size(pageSize).build());
+
+        assertThat(page.getContent()).hasSize(pageSize)
+                .allSatisfy(booking -> assertThat(booking.getPetServices()).hasSize(1));
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User user(String email, Role role) {
+        User user = User.builder()
+                .email(email)
+                .password("password")
+                .name("Name")
+                .lastName("Last")
+                .role(role)
+                .build();
+        entityManager.persist(user);
+        return user;
+    }
+}
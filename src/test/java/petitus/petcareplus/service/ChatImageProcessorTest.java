@@ -0,0 +1,146 @@
+package petitus.petcareplus.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatImageProcessorTest {
+    private static final String GPS_MARKER = "GPS 10.7769N 106.7009E";
+
+    @TempDir
+    private Path directory;
+
+    private ChatImageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        FileSystemImageStore imageStore = new FileSystemImageStore();
+        ReflectionTestUtils.setField(imageStore, "directory", directory);
+
+        processor = new ChatImageProcessor(imageStore);
+        ReflectionTestUtils.setField(processor, "enabled", true);
+        ReflectionTestUtils.setField(processor, "processingThreads", 3);
+        ReflectionTestUtils.setField(processor, "jpegQuality", 0.8f);
+        processor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        processor.stop();
+    }
+
+    @Test
+    void storesCenterCroppedScaledVariantsWithoutMetadata() throws IOException {
+        byte[] photo = withExif(jpeg(landscapeWithGreenCenter()));
+        assertThat(new String(photo, StandardCharsets.ISO_8859_1)).contains(GPS_MARKER);
+
+        ChatImageProcessor.ImageVariants variants = processor.process(new ByteArrayInputStream(photo));
+
+        assertVariant(variants.thumbnailUrl(), 150, 150);
+        assertVariant(variants.mediumUrl(), 400, 400);
+        // Never upscaled past the cropped side of the original
+        assertVariant(variants.largeUrl(), 800, 600);
+    }
+
+    @Test
+    void storesNothingWhenAVariantCannotBeEncoded() throws IOException {
+        // Out of range for the JPEG writer, every encode fails
+        ReflectionTestUtils.setField(processor, "jpegQuality", 2f);
+
+        assertThatThrownBy(() -> processor.process(new ByteArrayInputStream(jpeg(landscapeWithGreenCenter()))))
+                .isInstanceOf(IOException.class);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsContentThatIsNotAnImage() {
+        assertThatThrownBy(() -> processor.process(new ByteArrayInputStream("not an image".getBytes())))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unsupported image format");
+    }
+
+    private void assertVariant(String url, int variant, int side) throws IOException {
+        Path file = Path.of(URI.create(url));
+        assertThat(file).startsWith(directory);
+        assertThat(file.getFileName().toString()).endsWith("_" + variant + ".jpg");
+
+        byte[] content = Files.readAllBytes(file);
+        assertThat(new String(content, StandardCharsets.ISO_8859_1)).doesNotContain("Exif", GPS_MARKER);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+        assertThat(image.getWidth()).isEqualTo(side);
+        assertThat(image.getHeight()).isEqualTo(side);
+        // The red side bands are cropped away, corners included
+        assertGreen(image, 1, 1);
+        assertGreen(image, side - 2, 1);
+        assertGreen(image, 1, side - 2);
+        assertGreen(image, side - 2, side - 2);
+    }
+
+    private static void assertGreen(BufferedImage image, int x, int y) {
+        Color color = new Color(image.getRGB(x, y));
+        assertThat(color.getGreen()).as("green at %d,%d", x, y).isGreaterThan(200);
+        assertThat(color.getRed()).as("red at %d,%d", x, y).isLessThan(60);
+    }
+
+    /**
+     * 1200x600 with a green 600x600 center and red bands left and right.
+     */
+    private static BufferedImage landscapeWithGreenCenter() {
+        BufferedImage image = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(Color.RED);
+            graphics.fillRect(0, 0, 1200, 600);
+            graphics.setColor(Color.GREEN);
+            graphics.fillRect(300, 0, 600, 600);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Inserts an APP1 Exif segment right after the SOI marker, like a camera would.
+     */
+    private static byte[] withExif(byte[] jpeg) {
+        byte[] exif = ("Exif\0\0" + GPS_MARKER).getBytes(StandardCharsets.ISO_8859_1);
+        int length = exif.length + 2;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(jpeg, 0, 2);
+        output.write(0xFF);
+        output.write(0xE1);
+        output.write(length >> 8);
+        output.write(length & 0xFF);
+        output.write(exif, 0, exif.length);
+        output.write(jpeg, 2, jpeg.length - 2);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package petitus.petcareplus.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import petitus.petcareplus.exceptions.CipherException;
+import petitus.petcareplus.utils.AESCipher;
+import petitus.petcareplus.utils.KeyUtil;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CipherServiceTest {
+    private static final String APP_SECRET = "cGV0Y2FyZXBsdXMtdGVzdC1zZWNyZXQta2V5LTMyYnl0ZXM=";
+
+    // "Hello from before the GCM envelope" encrypted with APP_SECRET by the ECB cipher used before v2
+    private static final String LEGACY_CIPHER_TEXT = "Mgtp6m24oGpkZXl53dZlZ4Mf88vjs+5z5UuMzqzpfJXFFz6ufyv5/Y37DEJA2JIL";
+
+    private CipherService cipherService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cipherService = new CipherService(new AESCipherService());
+        ReflectionTestUtils.setField(cipherService, "appSecret", APP_SECRET);
+        cipherService.init();
+    }
+
+    @Test
+    void encryptsToGcmEnvelopesThatDecryptBack() {
+        String plainText = "Xin chào, is Milo free on Saturday? 🐶";
+
+        String first = cipherService.encrypt(plainText);
+        String second = cipherService.encrypt(plainText);
+
+        assertThat(first).startsWith(AESCipher.GCM_ENVELOPE_PREFIX);
+        assertThat(second).isNotEqualTo(first);
+        assertThat(cipherService.decrypt(first)).isEqualTo(plainText);
+        assertThat(cipherService.decrypt(second)).isEqualTo(plainText);
+        assertThat(cipherService.decryptForURL(cipherService.encryptForURL(plainText))).isEqualTo(plainText);
+    }
+
+    @Test
+    void rejectsTamperedGcmEnvelopes() {
+        String encrypted = cipherService.encrypt("Milo");
+        byte[] envelope = Base64.getDecoder().decode(encrypted.substring(AESCipher.GCM_ENVELOPE_PREFIX.length()));
+        envelope[envelope.length - 1] ^= 1;
+        String tampered = AESCipher.GCM_ENVELOPE_PREFIX + Base64.getEncoder().encodeToString(envelope);
+
+        assertThatThrownBy(() -> cipherService.decrypt(tampered)).isInstanceOf(CipherException.class);
+        assertThatThrownBy(() -> cipherService.decrypt(AESCipher.GCM_ENVELOPE_PREFIX + "AAAA"))
+                .isInstanceOf(CipherException.class);
+    }
+
+    @Test
+    void decryptsLegacyCipherTexts() {
+        assertThat(cipherService.decrypt(LEGACY_CIPHER_TEXT)).isEqualTo("Hello from before the GCM envelope");
+    }
+
+    @Test
+    void explicitKeyKeepsTheLegacyFormat() {
+        String key = Arrays.toString(KeyUtil.normalizeKey(APP_SECRET));
+
+        assertThat(cipherService.encrypt("Hello from before the GCM envelope", APP_SECRET))
+                .isEqualTo(LEGACY_CIPHER_TEXT);
+        assertThat(cipherService.decrypt(LEGACY_CIPHER_TEXT, key)).isEqualTo("Hello from before the GCM envelope");
+    }
+
+    @Test
+    void decryptAllKeepsOrderAndNullsUnreadableEntries() {
+        String current = cipherService.encrypt("new");
+
+        assertThat(cipherService.decryptAll(Arrays.asList(current, null, "not a cipher text", LEGACY_CIPHER_TEXT)))
+                .isEqualTo(Arrays.asList("new", null, null, "Hello from before the GCM envelope"));
+        assertThat(cipherService.decryptAll(List.of())).isEmpty();
+    }
+}
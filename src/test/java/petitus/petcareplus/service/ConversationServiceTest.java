@@ -0,0 +1,100 @@
+package petitus.petcareplus.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import petitus.petcareplus.dto.response.chat.ConversationResponse;
+import petitus.petcareplus.model.ChatMessage;
+import petitus.petcareplus.model.Conversation;
+import petitus.petcareplus.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conversation-service;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ConversationService.class)
+class ConversationServiceTest {
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final UUID PARTNER_ID = UUID.randomUUID();
+
+    private static final LocalDateTime SENT_AT = LocalDateTime.now().minusMonths(7).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private CipherService cipherService;
+
+    @BeforeEach
+    void mockUsersAndCipher() {
+        User partner = User.builder().name("Partner").lastName("Name").build();
+        partner.setId(PARTNER_ID);
+        when(userService.findAllByIds(anyList())).thenReturn(List.of(partner));
+        when(cipherService.decryptAll(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream()
+                .map(content -> content.substring("encrypted:".length()))
+                .toList());
+    }
+
+    @Test
+    void conversationWhoseLastMessageWasArchivedStaysInTheInbox() {
+        ChatMessage message = ChatMessage.builder()
+                .senderId(PARTNER_ID)
+                .recipientId(USER_ID)
+                .content("encrypted:See you at the park")
+                .build();
+        entityManager.persist(message);
+        entityManager.persist(Conversation.builder()
+                .userId(USER_ID)
+                .partnerId(PARTNER_ID)
+                .lastMessageId(message.getId())
+                .lastMessageAt(SENT_AT)
+                .lastSenderId(PARTNER_ID)
+                .lastMessageContent(message.getContent())
+                .unreadCount(1L)
+                .build());
+
+        // Its month moved to chat_messages_archive
+        entityManager.remove(message);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(conversationService.getAllConversations(USER_ID, 10)).singleElement().satisfies(this::isThePreview);
+        assertThat(conversationService.getAllConversationsWithKeyset(USER_ID, SENT_AT.plusSeconds(1), 10))
+                .singleElement().satisfies(this::isThePreview);
+    }
+
+    private void isThePreview(ConversationResponse conversation) {
+        assertThat(conversation.getUserId()).isEqualTo(PARTNER_ID);
+        assertThat(conversation.getLastMessage()).isEqualTo("See you at the park");
+        assertThat(conversation.getLastMessageTime()).isEqualTo(SENT_AT);
+        assertThat(conversation.getLastMessageSenderId()).isEqualTo(PARTNER_ID);
+        assertThat(conversation.getUnreadCount()).isEqualTo(1L);
+    }
+}
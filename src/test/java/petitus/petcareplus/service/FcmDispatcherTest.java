@@ -0,0 +1,108 @@
+package petitus.petcareplus.service;
+
+import com.google.firebase.messaging.MessagingErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FcmDispatcherTest {
+    @Mock
+    private FcmSender fcmSender;
+
+    @Mock
+    private FcmTokenService fcmTokenService;
+
+    private FcmDispatcher dispatcher;
+
+    private final Queue<FcmSender.SendResult> results = new ConcurrentLinkedQueue<>();
+
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new FcmDispatcher(fcmSender, fcmTokenService);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 100);
+        ReflectionTestUtils.setField(dispatcher, "sendThreads", 1);
+        ReflectionTestUtils.setField(dispatcher, "statsInterval", 60000L);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void prunesTokensFcmReportsAsDead() throws Exception {
+        givenResults(
+                FcmSender.SendResult.SUCCESS,
+                new FcmSender.SendResult(false, MessagingErrorCode.UNREGISTERED, "Requested entity was not found."),
+                new FcmSender.SendResult(false, MessagingErrorCode.INVALID_ARGUMENT,
+                        "The registration token is not a valid FCM registration token"));
+        when(fcmTokenService.deleteTokens(anySet())).thenAnswer(invocation -> {
+            Set<String> tokens = invocation.getArgument(0);
+            deleted.addAll(tokens);
+            return tokens.size();
+        });
+
+        dispatch("live", "unregistered", "malformed");
+
+        verify(fcmTokenService, timeout(5000).atLeastOnce()).deleteTokens(anySet());
+        verify(fcmTokenService, after(500).never()).deleteTokens(argThat(tokens -> tokens.contains("live")));
+        assertThat(deleted).containsExactlyInAnyOrder("unregistered", "malformed");
+    }
+
+    @Test
+    void keepsTokensWhenOnlyTheMessageIsRejected() throws Exception {
+        givenResults(
+                new FcmSender.SendResult(false, MessagingErrorCode.INVALID_ARGUMENT,
+                        "Request contains an invalid argument. Message is too big"),
+                new FcmSender.SendResult(false, MessagingErrorCode.UNAVAILABLE, "The service is unavailable."));
+
+        dispatch("first", "second");
+
+        verify(fcmSender, timeout(5000).atLeastOnce()).sendEach(anyList());
+        verify(fcmTokenService, after(500).never()).deleteTokens(anySet());
+        assertThat(results).isEmpty();
+    }
+
+    /**
+     * Answers the pushes in dispatch order, however the sender thread batches them.
+     */
+    private void givenResults(FcmSender.SendResult... sendResults) throws Exception {
+        results.addAll(List.of(sendResults));
+        when(fcmSender.sendEach(anyList())).thenAnswer(invocation -> {
+            List<FcmSender.SendResult> batch = new ArrayList<>();
+            for (int i = 0; i < invocation.<List<?>>getArgument(0).size(); i++) {
+                batch.add(results.remove());
+            }
+            return batch;
+        });
+    }
+
+    private void dispatch(String... tokens) {
+        dispatcher.dispatch(List.of(tokens), "New message from Lan", "Hi", Map.of("type", "CHAT"));
+    }
+}
@@ -0,0 +1,207 @@
+package petitus.petcareplus.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import petitus.petcareplus.dto.response.notification.NotificationReplayResponse;
+import petitus.petcareplus.dto.response.notification.NotificationResponse;
+import petitus.petcareplus.model.Notification;
+import petitus.petcareplus.repository.NotificationCounterRepository;
+import petitus.petcareplus.repository.NotificationRepository;
+import petitus.petcareplus.utils.enums.Notifications;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:notification-service;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(NotificationService.class)
+class NotificationServiceTest {
+    private static final UUID RECIPIENT_ID = UUID.randomUUID();
+
+    private static final LocalDateTime START = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @MockitoSpyBean
+    private NotificationRepository notificationRepository;
+
+    // Oldest first, one chat sender each
+    private final List<Notification> notifications = new ArrayList<>();
+
+    @BeforeEach
+    void createNotifications() {
+        when(userService.getCurrentUserId()).thenReturn(RECIPIENT_ID);
+
+        for (int i = 0; i < 5; i++) {
+            Notification notification = Notification.builder()
+                    .userIdSend(UUID.randomUUID())
+                    .userIdReceive(RECIPIENT_ID)
+                    .type(Notifications.CHAT)
+                    .title("New Message")
+                    .message("Message " + i)
+                    .relatedId(UUID.randomUUID())
+                    .updatedAt(START.plusMinutes(i))
+                    .build();
+            entityManager.persist(notification);
+            notifications.add(notification);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void mergedChatNotificationMovesToTheTopAndKeepsItsCreationTime() {
+        Notification oldest = notifications.get(0);
+        LocalDateTime createdAt = oldest.getCreatedAt();
+
+        merge(oldest);
+
+        List<NotificationResponse> inbox = notificationService.getNotifications(null, null, 10);
+        assertThat(inbox).extracting(NotificationResponse::getId).first().isEqualTo(oldest.getId());
+        assertThat(inbox.get(0).getAggregateCount()).isEqualTo(2);
+        assertThat(inbox.get(0).getCreatedAt()).isEqualTo(createdAt);
+        assertThat(inbox.get(0).getUpdatedAt()).isAfter(START.plusMinutes(4));
+    }
+
+    @Test
+    void pagesNeitherRepeatNorSkipNotificationsWhenOneIsMergedMeanwhile() {
+        List<NotificationResponse> firstPage = notificationService.getNotifications(null, null, 2);
+        assertThat(firstPage).extracting(NotificationResponse::getId)
+                .containsExactly(notifications.get(4).getId(), notifications.get(3).getId());
+
+        // Resurfaces above the first page, the client gets it pushed live
+        merge(notifications.get(1));
+
+        NotificationResponse last = firstPage.get(1);
+        List<NotificationResponse> secondPage = notificationService.getNotifications(last.getUpdatedAt(),
+                last.getId(), 2);
+        assertThat(secondPage).extracting(NotificationResponse::getId)
+                .containsExactly(notifications.get(2).getId(), notifications.get(0).getId());
+
+        last = secondPage.get(1);
+        assertThat(notificationService.getNotifications(last.getUpdatedAt(), last.getId(), 2)).isEmpty();
+    }
+
+    @Test
+    void replayStartsFromTheUpdateTimeTheClientSawEvenIfThatNotificationWasMergedSince() {
+        Notification seen = notifications.get(2);
+        LocalDateTime seenUpdatedAt = seen.getUpdatedAt();
+
+        merge(seen);
+        merge(notifications.get(0));
+
+        NotificationReplayResponse replay = notificationService.getNotificationsSince(RECIPIENT_ID, seenUpdatedAt,
+                seen.getId());
+        assertThat(replay.isResync()).isFalse();
+        assertThat(replay.isHasMore()).isFalse();
+        assertThat(replay.getNotifications()).extracting(NotificationResponse::getId).containsExactly(
+                notifications.get(3).getId(),
+                notifications.get(4).getId(),
+                seen.getId(),
+                notifications.get(0).getId());
+    }
+
+    @Test
+    void firstMessageOfASenderCreatesTheLiveNotificationAndCountsItOnce() {
+        UUID senderId = UUID.randomUUID();
+
+        notificationService.mergeChatNotifications(List.of(new NotificationService.CollapsedNotification(
+                RECIPIENT_ID, senderId, UUID.randomUUID(), "Hello", 2)));
+        notificationService.mergeChatNotifications(List.of(new NotificationService.CollapsedNotification(
+                RECIPIENT_ID, senderId, UUID.randomUUID(), "Are you there?", 1)));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Notification> live = notificationRepository.findLiveNotifications(Notifications.CHAT,
+                List.of(RECIPIENT_ID), List.of(senderId));
+        assertThat(live).singleElement().satisfies(notification -> {
+            assertThat(notification.getAggregateCount()).isEqualTo(3);
+            assertThat(notification.getTitle()).isEqualTo("3 new messages");
+            assertThat(notification.getMessage()).isEqualTo("Are you there?");
+        });
+        verify(notificationCounterRepository).addUnreadCount(RECIPIENT_ID, 1L);
+    }
+
+    @Test
+    void liveNotificationCreatedConcurrentlyByAnotherNodeIsMergedIntoAndNotCountedAgain() {
+        UUID senderId = UUID.randomUUID();
+        Notification other = Notification.builder()
+                .userIdSend(senderId)
+                .userIdReceive(RECIPIENT_ID)
+                .type(Notifications.CHAT)
+                .title("New Message")
+                .message("From the other node")
+                .relatedId(UUID.randomUUID())
+                .build();
+        // The other node's insert lands between our lookup and our insert, which the unique index then rejects
+        doAnswer(invocation -> {
+            entityManager.persist(other);
+            return 0;
+        }).when(notificationRepository).insertLiveChatNotification(any(), any(), any(), any(), any(), any(),
+                anyInt(), any());
+
+        notificationService.mergeChatNotifications(List.of(new NotificationService.CollapsedNotification(
+                RECIPIENT_ID, senderId, UUID.randomUUID(), "From this node", 2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Notification> live = notificationRepository.findLiveNotifications(Notifications.CHAT,
+                List.of(RECIPIENT_ID), List.of(senderId));
+        assertThat(live).singleElement().satisfies(notification -> {
+            assertThat(notification.getId()).isEqualTo(other.getId());
+            assertThat(notification.getAggregateCount()).isEqualTo(3);
+            assertThat(notification.getMessage()).isEqualTo("From this node");
+        });
+        verify(notificationCounterRepository, never()).addUnreadCount(any(), anyLong());
+    }
+
+    @Test
+    void replayWithoutAPointAsksForAResync() {
+        NotificationReplayResponse replay = notificationService.getNotificationsSince(RECIPIENT_ID, null, null);
+
+        assertThat(replay.isResync()).isTrue();
+        assertThat(replay.getNotifications()).isEmpty();
+    }
+
+    private void merge(Notification notification) {
+        notificationService.mergeChatNotifications(List.of(new NotificationService.CollapsedNotification(
+                RECIPIENT_ID, notification.getUserIdSend(), UUID.randomUUID(), "Another message", 1)));
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,182 @@
+package petitus.petcareplus.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import petitus.petcareplus.dto.response.booking.TimeSlotResponse;
+import petitus.petcareplus.repository.BookingRepository;
+import petitus.petcareplus.repository.ServiceProviderProfileRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProviderAvailabilityServiceTest {
+    private static final UUID PROVIDER_ID = UUID.randomUUID();
+
+    // Far enough ahead that no slot of the day is cut by "now"
+    private static final LocalDate MONDAY = LocalDate.now().plusDays(7).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ServiceProviderProfileRepository serviceProviderProfileRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private MessageSourceService messageSourceService;
+
+    private ProviderAvailabilityService availabilityService;
+
+    private final List<Object[]> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        availabilityService = new ProviderAvailabilityService(bookingRepository, serviceProviderProfileRepository,
+                redisTemplate, messageSourceService);
+        when(bookingRepository.findActiveSchedulesByProviderIds(anyCollection(), any())).thenReturn(bookings);
+    }
+
+    @Test
+    void parsesCommaSeparatedRanges() {
+        givenAvailableTime(Map.of("monday", "08:00-12:00, 13:00-17:00"));
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "08:00", MONDAY, "12:00"),
+                slot(MONDAY, "13:00", MONDAY, "17:00"));
+    }
+
+    @Test
+    void parsesRangeObjectsAndAbbreviatedDays() {
+        givenAvailableTime(Map.of(
+                "MON", List.of(Map.of("start", "08:00", "end", "10:00"), Map.of("from", "14:00", "to", "16:00")),
+                "tue", "08:00-17:00"));
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "08:00", MONDAY, "10:00"),
+                slot(MONDAY, "14:00", MONDAY, "16:00"));
+    }
+
+    @Test
+    void ignoresUnparseableRangesAndUnknownDays() {
+        givenAvailableTime(Map.of(
+                "monday", "8am-noon,09:00-11:00",
+                "mo", "00:00-24:00",
+                "holiday", "00:00-24:00"));
+
+        assertThat(mondaySlots(30)).containsExactly(slot(MONDAY, "09:00", MONDAY, "11:00"));
+    }
+
+    @Test
+    void withoutUsableHoursTheWholeDayIsAvailable() {
+        givenAvailableTime(Map.of("holiday", "nope"));
+
+        assertThat(mondaySlots(30)).containsExactly(slot(MONDAY, "00:00", MONDAY.plusDays(1), "00:00"));
+    }
+
+    @Test
+    void withoutAProfileTheWholeDayIsAvailable() {
+        givenBooking(MONDAY, "09:00", "10:00");
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "00:00", MONDAY, "09:00"),
+                slot(MONDAY, "10:00", MONDAY.plusDays(1), "00:00"));
+    }
+
+    @Test
+    void windowEndingPastMidnightContinuesIntoTheNextDay() {
+        givenAvailableTime(Map.of("sunday", "22:00-02:00", "monday", "08:00-24:00"));
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "00:00", MONDAY, "02:00"),
+                slot(MONDAY, "08:00", MONDAY.plusDays(1), "00:00"));
+    }
+
+    @Test
+    void bookingsAreCutOutOfTheWindowsEdgeToEdge() {
+        givenAvailableTime(Map.of("monday", "08:00-17:00"));
+        givenBooking(MONDAY, "09:00", "10:00");
+        givenBooking(MONDAY, "10:00", "11:30");
+        givenBooking(MONDAY, "16:30", "18:00");
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "08:00", MONDAY, "09:00"),
+                slot(MONDAY, "11:30", MONDAY, "16:30"));
+    }
+
+    @Test
+    void overlappingBookingsAreMerged() {
+        givenAvailableTime(Map.of("monday", "08:00-17:00"));
+        givenBooking(MONDAY, "09:00", "13:00");
+        givenBooking(MONDAY, "10:00", "11:00");
+        givenBooking(MONDAY, "12:00", "14:00");
+
+        assertThat(mondaySlots(30)).containsExactly(
+                slot(MONDAY, "08:00", MONDAY, "09:00"),
+                slot(MONDAY, "14:00", MONDAY, "17:00"));
+    }
+
+    @Test
+    void bookingStartedBeforeTheWindowStillBlocksIt() {
+        givenAvailableTime(Map.of("sunday", "20:00-23:00", "monday", "08:00-17:00"));
+        givenBooking(MONDAY.minusDays(1), "22:00", "09:00", MONDAY);
+
+        assertThat(mondaySlots(30)).containsExactly(slot(MONDAY, "09:00", MONDAY, "17:00"));
+    }
+
+    @Test
+    void gapsShorterThanTheMinimumAreDropped() {
+        givenAvailableTime(Map.of("monday", "08:00-12:00"));
+        givenBooking(MONDAY, "08:20", "10:00");
+        givenBooking(MONDAY, "10:45", "12:00");
+
+        assertThat(mondaySlots(30)).containsExactly(slot(MONDAY, "10:00", MONDAY, "10:45"));
+        assertThat(mondaySlots(60)).isEmpty();
+    }
+
+    private List<TimeSlotResponse> mondaySlots(int minMinutes) {
+        return availabilityService.getAvailability(List.of(PROVIDER_ID), MONDAY, MONDAY, minMinutes)
+                .get(0)
+                .getFreeSlots();
+    }
+
+    private void givenAvailableTime(Map<String, Object> availableTime) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{PROVIDER_ID, availableTime});
+        when(serviceProviderProfileRepository.findAvailableTimesByProviderIds(anyCollection())).thenReturn(rows);
+    }
+
+    private void givenBooking(LocalDate day, String start, String end) {
+        givenBooking(day, start, end, day);
+    }
+
+    private void givenBooking(LocalDate startDay, String start, String end, LocalDate endDay) {
+        bookings.add(new Object[]{UUID.randomUUID(), PROVIDER_ID, startDay.atTime(LocalTime.parse(start)),
+                endDay.atTime(LocalTime.parse(end))});
+    }
+
+    private static TimeSlotResponse slot(LocalDate startDay, String start, LocalDate endDay, String end) {
+        return TimeSlotResponse.builder()
+                .start(LocalDateTime.of(startDay, LocalTime.parse(start)))
+                .end(LocalDateTime.of(endDay, LocalTime.parse(end)))
+                .build();
+    }
+}
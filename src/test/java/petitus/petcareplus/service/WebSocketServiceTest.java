@@ -0,0 +1,114 @@
+package petitus.petcareplus.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import petitus.petcareplus.dto.response.chat.OnlineUsersSnapshotResponse;
+import petitus.petcareplus.dto.response.chat.UserPresenceResponse;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketServiceTest {
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final List<String> PARTNER_IDS = List.of("partner-1", "partner-2", "partner-3");
+
+    private static final String LEGACY_DESTINATION = "/user/" + USER_ID + "/queue/initial-online-users";
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private ChatService chatService;
+
+    @Mock
+    private ActiveChatService activeChatService;
+
+    @Mock
+    private OnlineUserService onlineUserService;
+
+    private final DefaultSimpUserRegistry simpUserRegistry = new DefaultSimpUserRegistry();
+
+    private WebSocketService webSocketService;
+
+    @BeforeEach
+    void setUp() {
+        webSocketService = new WebSocketService(messagingTemplate, chatService, activeChatService, onlineUserService,
+                simpUserRegistry);
+        when(chatService.getConversationPartnerIds(USER_ID)).thenReturn(PARTNER_IDS);
+        when(onlineUserService.findOnlineUsers(PARTNER_IDS)).thenReturn(List.of("partner-1", "partner-3"));
+    }
+
+    @Test
+    void connectSendsOnlyTheSnapshotToClientsNotSubscribedToTheLegacyFrames() {
+        connect("session-1", "/user/queue/online-users-snapshot");
+
+        webSocketService.handleUserPresence(USER_ID, true);
+
+        verify(messagingTemplate).convertAndSend(eq("/user/" + USER_ID + "/queue/online-users-snapshot"),
+                any(OnlineUsersSnapshotResponse.class));
+        verify(messagingTemplate, never()).convertAndSend(eq(LEGACY_DESTINATION), any(Object.class));
+    }
+
+    @Test
+    void connectAlsoSendsTheLegacyFramesToClientsSubscribedToThem() {
+        connect("session-1", "/user/queue/online-users-snapshot");
+        connect("session-2", "/user/queue/initial-online-users");
+
+        webSocketService.handleUserPresence(USER_ID, true);
+
+        verify(messagingTemplate).convertAndSend(eq("/user/" + USER_ID + "/queue/online-users-snapshot"),
+                any(OnlineUsersSnapshotResponse.class));
+        verify(messagingTemplate).convertAndSend(LEGACY_DESTINATION, new UserPresenceResponse("partner-1", true));
+        verify(messagingTemplate).convertAndSend(LEGACY_DESTINATION, new UserPresenceResponse("partner-3", true));
+    }
+
+    @Test
+    void legacyFramesCanBeForcedForEveryClient() {
+        ReflectionTestUtils.setField(webSocketService, "legacyInitialOnlineUsers", true);
+
+        webSocketService.handleUserPresence(USER_ID, true);
+
+        verify(messagingTemplate).convertAndSend(LEGACY_DESTINATION, new UserPresenceResponse("partner-1", true));
+        verify(messagingTemplate).convertAndSend(LEGACY_DESTINATION, new UserPresenceResponse("partner-3", true));
+    }
+
+    /**
+     * Registers a session of the user with one subscription, as the STOMP session events do.
+     */
+    private void connect(String sessionId, String destination) {
+        Principal user = USER_ID::toString;
+        simpUserRegistry.onApplicationEvent(new SessionConnectedEvent(this,
+                message(SimpMessageType.CONNECT_ACK, sessionId, null), user));
+        simpUserRegistry.onApplicationEvent(new SessionSubscribeEvent(this,
+                message(SimpMessageType.SUBSCRIBE, sessionId, destination), user));
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
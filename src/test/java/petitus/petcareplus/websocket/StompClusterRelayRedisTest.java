@@ -0,0 +1,183 @@
+package petitus.petcareplus.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes, each with its own relay, listener and broker channel, sharing one real Redis server.
+ */
+class StompClusterRelayRedisTest {
+    private static final String USER_ID = "3f1c2b7e-5d0a-4e8b-9c61-0a2f4d6e8b10";
+
+    private static final String USER_DESTINATION = "/user/" + USER_ID + "/queue/messages";
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private Node nodeA;
+
+    private Node nodeB;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        new StringRedisTemplate(connectionFactory).execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        nodeA = new Node();
+        nodeB = new Node();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    void userMessageSentOnOneNodeIsDeliveredOnceOnTheNodeHostingTheUser() throws Exception {
+        nodeB.connect(USER_ID, "session-b");
+
+        nodeA.send(USER_DESTINATION);
+
+        Message<?> delivered = nodeB.relayed.poll(5, TimeUnit.SECONDS);
+        assertThat(delivered).isNotNull();
+        assertThat(SimpMessageHeaderAccessor.getDestination(delivered.getHeaders())).isEqualTo(USER_DESTINATION);
+        assertThat(new String((byte[]) delivered.getPayload(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"content\":\"hi\"}");
+
+        // Nothing else arrives on either node, in particular no echo back to the sender
+        assertThat(nodeB.relayed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(nodeA.relayed).isEmpty();
+    }
+
+    @Test
+    void userMessageIsNotRelayedWhenTheUserIsOnlyOnTheSendingNode() throws Exception {
+        nodeA.connect(USER_ID, "session-a");
+
+        nodeA.send(USER_DESTINATION);
+
+        assertThat(nodeB.relayed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(nodeA.relayed).isEmpty();
+    }
+
+    @Test
+    void broadcastIsDeliveredOnceOnEveryOtherNode() throws Exception {
+        nodeA.send("/topic/online-users");
+
+        Message<?> delivered = nodeB.relayed.poll(5, TimeUnit.SECONDS);
+        assertThat(delivered).isNotNull();
+        assertThat(SimpMessageHeaderAccessor.getDestination(delivered.getHeaders())).isEqualTo("/topic/online-users");
+
+        assertThat(nodeB.relayed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(nodeA.relayed).isEmpty();
+    }
+
+    /**
+     * One application node: the broker channel with the relay interceptor, and the Redis listener re-injecting
+     * messages from the other nodes into it. What reaches the broker from the cluster is collected in
+     * {@link #relayed}.
+     */
+    private static final class Node {
+        private final StompClusterRelay relay;
+
+        private final SimpMessagingTemplate messagingTemplate;
+
+        private final RedisMessageListenerContainer container;
+
+        private final BlockingQueue<Message<?>> relayed = new LinkedBlockingQueue<>();
+
+        Node() {
+            ObjectMapper objectMapper = new ObjectMapper();
+            relay = new StompClusterRelay(new StringRedisTemplate(connectionFactory), objectMapper);
+
+            ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+            brokerChannel.addInterceptor(relay);
+            brokerChannel.subscribe(message -> {
+                if (message.getHeaders().containsKey(StompClusterRelay.RELAYED_HEADER)) {
+                    relayed.add(message);
+                }
+            });
+            messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+
+            container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener(new StompClusterListener(relay, messagingTemplate, objectMapper), List.of(
+                    new ChannelTopic(StompClusterRelay.BROADCAST_CHANNEL),
+                    new ChannelTopic(relay.getNodeChannel())));
+            container.afterPropertiesSet();
+            container.start();
+        }
+
+        void connect(String userId, String sessionId) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+            accessor.setSessionId(sessionId);
+            Principal user = () -> userId;
+            relay.handleSessionConnected(new SessionConnectedEvent(this,
+                    MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), user));
+        }
+
+        void send(String destination) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            messagingTemplate.send(destination, MessageBuilder.createMessage(
+                    "{\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()));
+        }
+
+        void stop() throws Exception {
+            relay.unregisterAll();
+            container.destroy();
+        }
+    }
+}
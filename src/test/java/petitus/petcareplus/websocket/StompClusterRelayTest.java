@@ -0,0 +1,122 @@
+package petitus.petcareplus.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StompClusterRelayTest {
+    private static final String USER_ID = "3f1c2b7e-5d0a-4e8b-9c61-0a2f4d6e8b10";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private MessageChannel channel;
+
+    private StompClusterRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new StompClusterRelay(redisTemplate, objectMapper);
+    }
+
+    @Test
+    void userDestinationIsRelayedToTheOtherNodesHostingTheUser() throws Exception {
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members("ws:user_nodes:" + USER_ID)).thenReturn(Set.of(relay.getNodeId(), "other"));
+
+        Message<byte[]> message = message("/user/" + USER_ID + "/queue/messages", null);
+        assertThat(relay.preSend(message, channel)).isSameAs(message);
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("ws:node:other"), body.capture());
+        verify(redisTemplate, never()).convertAndSend(eq(relay.getNodeChannel()), anyString());
+
+        StompClusterRelay.ClusterMessage relayed = objectMapper.readValue(body.getValue(),
+                StompClusterRelay.ClusterMessage.class);
+        assertThat(relayed.origin()).isEqualTo(relay.getNodeId());
+        assertThat(relayed.destination()).isEqualTo("/user/" + USER_ID + "/queue/messages");
+        assertThat(relayed.contentType()).isEqualTo(MimeTypeUtils.APPLICATION_JSON_VALUE);
+        assertThat(new String(relayed.payload(), StandardCharsets.UTF_8)).isEqualTo("{\"content\":\"hi\"}");
+    }
+
+    @Test
+    void otherDestinationsAreBroadcast() {
+        relay.preSend(message("/topic/online-users", null), channel);
+
+        verify(redisTemplate).convertAndSend(eq(StompClusterRelay.BROADCAST_CHANNEL), anyString());
+        verify(redisTemplate, never()).opsForSet();
+    }
+
+    @Test
+    void sessionMessagesResolvedFromAUserDestinationAreNotRelayedAgain() {
+        // What the user destination resolver sends for /user/{id}/queue/messages, one per local session
+        Message<byte[]> message = message("/queue/messages-usersession1",
+                accessor -> accessor.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION,
+                        "/user/queue/messages"));
+
+        assertThat(relay.preSend(message, channel)).isSameAs(message);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void messagesRelayedFromAnotherNodeAreNotRelayedAgain() {
+        relay.preSend(message("/topic/online-users",
+                accessor -> accessor.setHeader(StompClusterRelay.RELAYED_HEADER, true)), channel);
+        relay.preSend(message("/user/" + USER_ID + "/queue/messages",
+                accessor -> accessor.setHeader(StompClusterRelay.RELAYED_HEADER, true)), channel);
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void nonMessageFramesAreIgnored() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setDestination("/topic/online-users");
+
+        relay.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), channel);
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private static Message<byte[]> message(String destination, Consumer<SimpMessageHeaderAccessor> customizer) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (customizer != null) {
+            customizer.accept(accessor);
+        }
+        return MessageBuilder.createMessage("{\"content\":\"hi\"}".getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+    }
+}